@@ -3,6 +3,7 @@ plugins {
     id("org.springframework.boot") version "4.0.2"
     id("io.spring.dependency-management") version "1.1.7"
     id("com.github.davidmc24.gradle.plugin.avro") version "1.9.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 springBoot {
@@ -27,6 +28,8 @@ dependencies {
     testImplementation("org.testcontainers:testcontainers")
     testImplementation("org.testcontainers:junit-jupiter")
     testImplementation("org.testcontainers:kafka")
+
+    jmh("org.springframework:spring-test")
 }
 
 tasks.register<org.springframework.boot.gradle.tasks.run.BootRun>("localBootRun") {
@@ -49,3 +52,12 @@ avro {
     setFieldVisibility("PRIVATE")
     setStringType("String")
 }
+
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+}
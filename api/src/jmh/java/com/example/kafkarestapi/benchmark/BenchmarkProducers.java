@@ -0,0 +1,74 @@
+package com.example.kafkarestapi.benchmark;
+
+import com.example.kafkarestapi.avro.Event;
+import com.example.kafkarestapi.config.AppKafkaProperties;
+import com.example.kafkarestapi.kafka.AvroEventSerializer;
+import com.example.kafkarestapi.service.KafkaEventProducer;
+import com.example.kafkarestapi.service.ProducerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.kafka.core.KafkaTemplate;
+
+final class BenchmarkProducers {
+
+    static final String TOPIC = "events";
+
+    private BenchmarkProducers() {
+    }
+
+    static KafkaEventProducer producer(CountingMockProducer mockProducer, ProducerMetrics metrics) {
+        var template = new KafkaTemplate<String, Event>(() -> mockProducer);
+        template.setMicrometerEnabled(false);
+        var properties = new AppKafkaProperties(new AppKafkaProperties.Topic(TOPIC, TOPIC + "-schema-registry"), null);
+        return new KafkaEventProducer(template, properties, new StandardEnvironment(), metrics);
+    }
+
+    static ProducerMetrics metrics() {
+        return new ProducerMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Auto-completing mock producer that runs the real {@link AvroEventSerializer} and counts sends. The
+     * template closes its producer after every send, so close is a no-op here.
+     */
+    static final class CountingMockProducer extends MockProducer<String, Event> {
+
+        private final AtomicInteger sent = new AtomicInteger();
+
+        CountingMockProducer() {
+            super(true, null, new StringSerializer(), new AvroEventSerializer());
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, Event> record, Callback callback) {
+            var future = super.send(record, callback);
+            sent.incrementAndGet();
+            return future;
+        }
+
+        int sent() {
+            return sent.get();
+        }
+
+        void reset() {
+            clear();
+            sent.set(0);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.kafkarestapi.benchmark;
+
+import com.example.kafkarestapi.avro.Event;
+import com.example.kafkarestapi.kafka.AvroEventSerializer;
+import com.example.kafkarestapi.service.KafkaEventProducer;
+import com.example.kafkarestapi.web.EventController.EventRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Per-event cost of the pieces on the {@code POST /events} path: JSON parsing into {@link EventRequest},
+ * {@link Event} construction, {@link AvroEventSerializer} encoding, and a fire-and-forget publish through
+ * {@link KafkaEventProducer} into a mock producer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EventIngestBenchmark {
+
+    static final String EVENT_JSON =
+        "{\"id\":\"evt-000001\",\"type\":\"user.created\",\"payload\":\"{\\\"userId\\\":\\\"000001\\\"}\"}";
+
+    private ObjectMapper objectMapper;
+    private EventRequest request;
+    private Event event;
+    private AvroEventSerializer serializer;
+    private BenchmarkProducers.CountingMockProducer mockProducer;
+    private KafkaEventProducer producer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        request = objectMapper.readValue(EVENT_JSON, EventRequest.class);
+        event = new Event(request.id(), request.type(), 1_700_000_000_000L, request.payload());
+        serializer = new AvroEventSerializer();
+        mockProducer = new BenchmarkProducers.CountingMockProducer();
+        producer = BenchmarkProducers.producer(mockProducer, BenchmarkProducers.metrics());
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearHistory() {
+        mockProducer.reset();
+    }
+
+    @Benchmark
+    public EventRequest parseJson() throws IOException {
+        return objectMapper.readValue(EVENT_JSON, EventRequest.class);
+    }
+
+    @Benchmark
+    public Event buildEvent() {
+        var timestampMs = request.timestampMs() != null ? request.timestampMs() : System.currentTimeMillis();
+        return new Event(request.id(), request.type(), timestampMs, request.payload());
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(BenchmarkProducers.TOPIC, event);
+    }
+
+    @Benchmark
+    public void publishFireAndForget() {
+        producer.publishFireAndForget(event);
+    }
+
+    @Benchmark
+    public void endToEnd() throws IOException {
+        var parsed = objectMapper.readValue(EVENT_JSON, EventRequest.class);
+        var timestampMs = parsed.timestampMs() != null ? parsed.timestampMs() : System.currentTimeMillis();
+        producer.publishFireAndForget(new Event(parsed.id(), parsed.type(), timestampMs, parsed.payload()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.kafkarestapi.benchmark;
+
+import com.example.kafkarestapi.avro.Event;
+import com.example.kafkarestapi.web.EventController;
+import com.example.kafkarestapi.web.NdjsonEventReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing an NDJSON body of {@value #LINES} events into {@link Event}s, comparing the previous
+ * {@code readLine} + {@code readValue} path with {@link NdjsonEventReader}. Scores and
+ * {@code gc.alloc.rate.norm} are per event, so they scale linearly to multi-GB uploads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NdjsonParseBenchmark {
+
+    private static final int LINES = 10_000;
+
+    private ObjectMapper objectMapper;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        var ndjson = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            ndjson.append("{\"id\":\"evt-").append(i)
+                .append("\",\"type\":\"user.created\",\"payload\":\"{\\\"userId\\\":\\\"").append(i)
+                .append("\\\"}\",\"timestampMs\":1700000000000}\n");
+        }
+        body = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void readLineAndReadValue(Blackhole blackhole) throws IOException {
+        try (var reader = new BufferedReader(
+            new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                var request = objectMapper.readValue(line, EventController.EventRequest.class);
+                var timestampMs = request.timestampMs() != null ? request.timestampMs() : System.currentTimeMillis();
+                blackhole.consume(new Event(request.id(), request.type(), timestampMs, request.payload()));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void streamingParser(Blackhole blackhole) throws IOException {
+        try (var events = new NdjsonEventReader(objectMapper, new ByteArrayInputStream(body))) {
+            Event event;
+            while ((event = events.next()) != null) {
+                blackhole.consume(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.kafkarestapi.benchmark;
+
+import com.example.kafkarestapi.config.AppBatchProperties;
+import com.example.kafkarestapi.web.EventController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * {@link EventController#ingestStream} reading an NDJSON body of {@value #LINES} events in
+ * fire-and-forget mode against a mock producer. Each invocation waits until every line has been
+ * published, so scores and {@code gc.alloc.rate.norm} are per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NdjsonStreamBenchmark {
+
+    private static final int LINES = 1_000;
+
+    private EventController controller;
+    private BenchmarkProducers.CountingMockProducer mockProducer;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mockProducer = new BenchmarkProducers.CountingMockProducer();
+        var metrics = BenchmarkProducers.metrics();
+        controller = new EventController(BenchmarkProducers.producer(mockProducer, metrics),
+            new ObjectMapper().findAndRegisterModules(), metrics,
+            new AppBatchProperties(10_000, DataSize.ofMegabytes(16)));
+        var ndjson = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            ndjson.append("{\"id\":\"evt-").append(i)
+                .append("\",\"type\":\"user.created\",\"payload\":\"{\\\"userId\\\":\\\"").append(i)
+                .append("\\\"}\"}\n");
+        }
+        body = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public ResponseBodyEmitter ingestStream() {
+        mockProducer.reset();
+        var request = new MockHttpServletRequest("POST", "/events/stream");
+        request.setContentType("application/x-ndjson");
+        request.setContent(body);
+
+        var emitter = controller.ingestStream(request, "fire-and-forget", null);
+        while (mockProducer.sent() < LINES) {
+            Thread.onSpinWait();
+        }
+        return emitter;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.kafkarestapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Limits for one {@code POST /events/batch} body, which is held in memory until every event is sent.
+ */
+@ConfigurationProperties(prefix = "app.batch")
+public record AppBatchProperties(
+    @DefaultValue("10000") int maxEvents,
+    @DefaultValue("16MB") DataSize maxBytes
+) {
+}
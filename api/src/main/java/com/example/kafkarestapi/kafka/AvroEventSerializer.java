@@ -3,22 +3,58 @@ package com.example.kafkarestapi.kafka;
 import com.example.kafkarestapi.avro.Event;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.serialization.Serializer;
 
+/**
+ * Serializes {@link Event} values without a schema registry. The {@value #ENCODING_CONFIG} producer
+ * property selects the wire format:
+ * <ul>
+ *   <li>{@code ocf} (default): an Avro object container file per event, carrying the full JSON schema.</li>
+ *   <li>{@code single-object}: Avro single-object encoding, i.e. a 2-byte marker, the 8-byte schema
+ *   fingerprint and the binary record. Consumers must already know the schema for the fingerprint.</li>
+ * </ul>
+ */
 public class AvroEventSerializer implements Serializer<Event> {
 
+    public static final String ENCODING_CONFIG = "avro.event.encoding";
+
+    private static final SpecificDatumWriter<Event> WRITER = new SpecificDatumWriter<>(Event.getClassSchema());
+
+    // Producers serialize on the calling thread, so each thread reuses its own buffer; an unusually large
+    // event's buffer is dropped rather than kept for the thread's lifetime.
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<ByteArrayOutputStream> SINGLE_OBJECT_BUFFER =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(256));
+
+    private Encoding encoding = Encoding.OCF;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        var value = configs.get(ENCODING_CONFIG);
+        if (value != null) {
+            encoding = Encoding.fromConfig(value.toString());
+        }
+    }
+
     @Override
     public byte[] serialize(String topic, Event data) {
         if (data == null) {
             return null;
         }
+        return switch (encoding) {
+            case OCF -> serializeContainer(data);
+            case SINGLE_OBJECT -> serializeSingleObject(data);
+        };
+    }
 
-        var writer = new SpecificDatumWriter<>(Event.getClassSchema());
+    private byte[] serializeContainer(Event data) {
         try (var output = new ByteArrayOutputStream(256);
-                var dataFileWriter = new DataFileWriter<>(writer)) {
+                var dataFileWriter = new DataFileWriter<>(WRITER)) {
             dataFileWriter.create(Event.getClassSchema(), output);
             dataFileWriter.append(data);
             dataFileWriter.flush();
@@ -27,4 +63,33 @@ public class AvroEventSerializer implements Serializer<Event> {
             throw new SerializationException("Failed to serialize Event", ex);
         }
     }
+
+    private byte[] serializeSingleObject(Event data) {
+        var output = SINGLE_OBJECT_BUFFER.get();
+        output.reset();
+        try {
+            // Writes the header and record straight into the reused buffer, so toByteArray is the only copy.
+            Event.getEncoder().encode(data, output);
+            return output.toByteArray();
+        } catch (IOException ex) {
+            throw new SerializationException("Failed to serialize Event", ex);
+        } finally {
+            if (output.size() > MAX_RETAINED_BUFFER) {
+                SINGLE_OBJECT_BUFFER.remove();
+            }
+        }
+    }
+
+    public enum Encoding {
+        OCF,
+        SINGLE_OBJECT;
+
+        public static Encoding fromConfig(String value) {
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "", "ocf" -> OCF;
+                case "single-object", "single_object" -> SINGLE_OBJECT;
+                default -> throw new IllegalArgumentException("Unsupported " + ENCODING_CONFIG + ": " + value);
+            };
+        }
+    }
 }
@@ -2,7 +2,9 @@ package com.example.kafkarestapi.service;
 
 import com.example.kafkarestapi.avro.Event;
 import com.example.kafkarestapi.config.AppKafkaProperties;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,19 +21,27 @@ public class KafkaEventProducer {
     private final KafkaTemplate<String, Event> kafkaTemplate;
     private final String eventsTopic;
     private final boolean localProfileActive;
+    private final ProducerMetrics metrics;
 
     public KafkaEventProducer(
         KafkaTemplate<String, Event> kafkaTemplate,
         AppKafkaProperties properties,
-        Environment environment
+        Environment environment,
+        ProducerMetrics metrics
     ) {
         this.kafkaTemplate = kafkaTemplate;
         this.eventsTopic = properties.topic().events();
         this.localProfileActive = Arrays.asList(environment.getActiveProfiles()).contains("local");
+        this.metrics = metrics;
     }
 
     public void publishFireAndForget(Event event) {
-        var future = kafkaTemplate.send(eventsTopic, event.getId(), event);
+        publishFireAndForget(event, ProducerMetrics.Route.V1_SINGLE);
+    }
+
+    public void publishFireAndForget(Event event, ProducerMetrics.Route route) {
+        var future = metrics.record(route, ProducerMetrics.FIRE_AND_FORGET,
+            () -> kafkaTemplate.send(eventsTopic, event.getId(), event));
         future.whenComplete((result, ex) -> {
             if (ex != null) {
                 if (localProfileActive) {
@@ -53,7 +63,12 @@ public class KafkaEventProducer {
     }
 
     public CompletableFuture<SendResult<String, Event>> publishWaitForAck(Event event) {
-        var future = kafkaTemplate.send(eventsTopic, event.getId(), event);
+        return publishWaitForAck(event, ProducerMetrics.Route.V1_SINGLE);
+    }
+
+    public CompletableFuture<SendResult<String, Event>> publishWaitForAck(Event event, ProducerMetrics.Route route) {
+        var future = metrics.record(route, ProducerMetrics.WAIT_FOR_ACK,
+            () -> kafkaTemplate.send(eventsTopic, event.getId(), event));
         future.whenComplete((result, ex) -> {
             if (!localProfileActive) {
                 return;
@@ -73,4 +88,31 @@ public class KafkaEventProducer {
         });
         return future;
     }
+
+    /**
+     * Sends every event without waiting between them, so the producer can batch them together, and
+     * completes with the indexes of the events that failed, in ascending order, once all sends have
+     * completed. Indexes rather than ids identify failures because ids need not be unique.
+     */
+    public CompletableFuture<List<Integer>> publishAllWaitForAck(List<Event> events) {
+        var outcomes = new ArrayList<CompletableFuture<Boolean>>(events.size());
+        for (var event : events) {
+            CompletableFuture<SendResult<String, Event>> future;
+            try {
+                future = publishWaitForAck(event, ProducerMetrics.Route.V1_BATCH);
+            } catch (RuntimeException ex) {
+                future = CompletableFuture.failedFuture(ex);
+            }
+            outcomes.add(future.handle((result, ex) -> ex == null));
+        }
+        return CompletableFuture.allOf(outcomes.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            var failedIndexes = new ArrayList<Integer>();
+            for (int i = 0; i < outcomes.size(); i++) {
+                if (!outcomes.get(i).join()) {
+                    failedIndexes.add(i);
+                }
+            }
+            return failedIndexes;
+        });
+    }
 }
@@ -22,19 +22,27 @@ public class KafkaEventProducerSchemaRegistry {
     private final KafkaTemplate<String, Event> kafkaTemplate;
     private final String eventsTopic;
     private final boolean localProfileActive;
+    private final ProducerMetrics metrics;
 
     public KafkaEventProducerSchemaRegistry(
         @Qualifier("schemaRegistryKafkaTemplate") KafkaTemplate<String, Event> kafkaTemplate,
         AppKafkaProperties properties,
-        Environment environment
+        Environment environment,
+        ProducerMetrics metrics
     ) {
         this.kafkaTemplate = kafkaTemplate;
         this.eventsTopic = properties.topic().eventsSchemaRegistry();
         this.localProfileActive = Arrays.asList(environment.getActiveProfiles()).contains("local");
+        this.metrics = metrics;
     }
 
     public void publishFireAndForget(Event event) {
-        var future = kafkaTemplate.send(eventsTopic, event.getId(), event);
+        publishFireAndForget(event, ProducerMetrics.Route.V2_SINGLE);
+    }
+
+    public void publishFireAndForget(Event event, ProducerMetrics.Route route) {
+        var future = metrics.record(route, ProducerMetrics.FIRE_AND_FORGET,
+            () -> kafkaTemplate.send(eventsTopic, event.getId(), event));
         future.whenComplete((result, ex) -> {
             if (ex != null) {
                 if (localProfileActive) {
@@ -56,7 +64,12 @@ public class KafkaEventProducerSchemaRegistry {
     }
 
     public CompletableFuture<SendResult<String, Event>> publishWaitForAck(Event event) {
-        var future = kafkaTemplate.send(eventsTopic, event.getId(), event);
+        return publishWaitForAck(event, ProducerMetrics.Route.V2_SINGLE);
+    }
+
+    public CompletableFuture<SendResult<String, Event>> publishWaitForAck(Event event, ProducerMetrics.Route route) {
+        var future = metrics.record(route, ProducerMetrics.WAIT_FOR_ACK,
+            () -> kafkaTemplate.send(eventsTopic, event.getId(), event));
         future.whenComplete((result, ex) -> {
             if (!localProfileActive) {
                 return;
@@ -0,0 +1,183 @@
+package com.example.kafkarestapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.kafka.clients.producer.BufferExhaustedException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer meters for the publish path: send-to-ack latency per endpoint and ack mode, sends in
+ * flight, time spent blocked inside {@code send} (bounded by {@code max.block.ms}), send failures by
+ * cause and stream backpressure waits.
+ */
+@Component
+public class ProducerMetrics {
+
+    public static final String FIRE_AND_FORGET = "fire-and-forget";
+    public static final String WAIT_FOR_ACK = "wait-for-ack";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<AckLatencyKey, Timer> ackLatency = new ConcurrentHashMap<>();
+    private final Timer sendBlockTime;
+    private final Counter bufferExhausted;
+    private final Counter blockTimeouts;
+    private final Counter deliveryTimeouts;
+    private final Counter otherFailures;
+    private final AtomicInteger backpressureWaiting = new AtomicInteger();
+    private final Timer backpressureWaitTime;
+
+    public ProducerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.sendBlockTime = Timer.builder("api.producer.send.block.time")
+            .description("Time the caller spends inside KafkaTemplate.send waiting for buffer space or metadata")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.bufferExhausted = failureCounter("buffer-exhausted");
+        this.blockTimeouts = failureCounter("block-timeout");
+        this.deliveryTimeouts = failureCounter("delivery-timeout");
+        this.otherFailures = failureCounter("other");
+        Gauge.builder("api.stream.backpressure.waiting", backpressureWaiting, AtomicInteger::get)
+            .description("Stream requests blocked on their x-max-in-flight limit")
+            .register(meterRegistry);
+        this.backpressureWaitTime = Timer.builder("api.stream.backpressure.wait.time")
+            .description("Time a stream request waited for an in-flight permit")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs the send and records its latency until the broker acknowledges or rejects it. Fire-and-forget
+     * sends are timed too; only the caller stops waiting for them.
+     */
+    public <T> CompletableFuture<T> record(Route route, String ackMode, Supplier<CompletableFuture<T>> send) {
+        var sends = inFlight(route.api());
+        sends.incrementAndGet();
+        var started = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = send.get();
+        } catch (RuntimeException ex) {
+            sends.decrementAndGet();
+            failed(ex, true);
+            throw ex;
+        } finally {
+            sendBlockTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        // KafkaProducer reports a max.block.ms stall by failing the send before it returns, not by throwing,
+        // so a future that has already failed here never reached the accumulator.
+        var failedInSend = future.isCompletedExceptionally();
+        future.whenComplete((result, ex) -> {
+            sends.decrementAndGet();
+            ackLatency(route, ackMode, ex == null).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (ex != null) {
+                failed(ex, failedInSend);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Acquires a stream backpressure permit, recording the wait only when the permit is not immediately
+     * available.
+     */
+    public void acquire(Semaphore permits) {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        backpressureWaiting.incrementAndGet();
+        var started = System.nanoTime();
+        try {
+            permits.acquireUninterruptibly();
+        } finally {
+            backpressureWaiting.decrementAndGet();
+            backpressureWaitTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private AtomicInteger inFlight(String api) {
+        return inFlight.computeIfAbsent(api, ignored -> {
+            var sends = new AtomicInteger();
+            Gauge.builder("api.publish.in.flight", sends, AtomicInteger::get)
+                .description("Kafka sends waiting for a broker acknowledgement")
+                .tag("api", api)
+                .register(meterRegistry);
+            return sends;
+        });
+    }
+
+    private Timer ackLatency(Route route, String ackMode, boolean succeeded) {
+        return ackLatency.computeIfAbsent(new AckLatencyKey(route, ackMode, succeeded), key ->
+            Timer.builder("api.publish.ack.latency")
+                .description("Time from KafkaTemplate.send to the broker acknowledgement")
+                .tag("api", route.api())
+                .tag("request", route.request())
+                .tag("ack.mode", ackMode)
+                .tag("outcome", succeeded ? "acked" : "failed")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private Counter failureCounter(String reason) {
+        return Counter.builder("api.producer.send.failures")
+            .description("Failed Kafka sends by cause")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Counts a failure by cause. A {@link TimeoutException} from inside {@code send} means the caller was
+     * blocked for {@code max.block.ms} waiting for metadata; one that arrives later means the record expired
+     * after {@code delivery.timeout.ms} in the accumulator or in flight.
+     */
+    private void failed(Throwable ex, boolean duringSend) {
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BufferExhaustedException) {
+                bufferExhausted.increment();
+                return;
+            }
+            if (cause instanceof TimeoutException) {
+                (duringSend ? blockTimeouts : deliveryTimeouts).increment();
+                return;
+            }
+        }
+        otherFailures.increment();
+    }
+
+    public enum Route {
+        V1_SINGLE("v1", "single"),
+        V1_STREAM("v1", "stream"),
+        V1_BATCH("v1", "batch"),
+        V2_SINGLE("v2", "single"),
+        V2_STREAM("v2", "stream");
+
+        private final String api;
+        private final String request;
+
+        Route(String api, String request) {
+            this.api = api;
+            this.request = request;
+        }
+
+        public String api() {
+            return api;
+        }
+
+        public String request() {
+            return request;
+        }
+    }
+
+    private record AckLatencyKey(Route route, String ackMode, boolean succeeded) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.kafkarestapi.web;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails a read once more than {@code limit} bytes have been consumed, so a request body without a
+ * {@code Content-Length} cannot grow past the limit either.
+ */
+class BoundedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long consumed;
+
+    BoundedInputStream(InputStream input, long limit) {
+        super(input);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        var value = super.read();
+        if (value >= 0) {
+            count(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        var read = super.read(buffer, offset, length);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        var skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    private void count(long bytes) throws LimitExceededException {
+        consumed += bytes;
+        if (consumed > limit) {
+            throw new LimitExceededException(limit);
+        }
+    }
+
+    static class LimitExceededException extends IOException {
+
+        LimitExceededException(long limit) {
+            super("Request body exceeds " + limit + " bytes");
+        }
+    }
+}
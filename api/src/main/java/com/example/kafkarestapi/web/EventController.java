@@ -1,16 +1,25 @@
 package com.example.kafkarestapi.web;
 
 import com.example.kafkarestapi.avro.Event;
+import com.example.kafkarestapi.config.AppBatchProperties;
 import com.example.kafkarestapi.service.KafkaEventProducer;
+import com.example.kafkarestapi.service.ProducerMetrics;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import jakarta.servlet.http.HttpServletRequest;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.CompletableFuture;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
@@ -19,6 +28,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/events")
@@ -26,10 +36,23 @@ public class EventController {
 
     private final KafkaEventProducer producer;
     private final ObjectMapper objectMapper;
+    private final ProducerMetrics metrics;
+    private final AppBatchProperties batchProperties;
+    private final ObjectReader batchRequestReader;
 
-    public EventController(KafkaEventProducer producer, ObjectMapper objectMapper) {
+    public EventController(
+        KafkaEventProducer producer,
+        ObjectMapper objectMapper,
+        ProducerMetrics metrics,
+        AppBatchProperties batchProperties
+    ) {
         this.producer = producer;
         this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.batchProperties = batchProperties;
+        // Unknown fields were ignored when the array was bound as a @RequestBody; keep that.
+        this.batchRequestReader = objectMapper.readerFor(EventRequest.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
     @PostMapping
@@ -54,6 +77,114 @@ public class EventController {
         };
     }
 
+    /**
+     * Accepts a JSON array of {@link EventRequest}. The array is read one element at a time so the
+     * {@code app.batch} limits are enforced before the whole body is in memory.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<BatchResponse>> ingestBatch(
+        HttpServletRequest request,
+        @RequestHeader(name = "x-ack-mode", required = false) String ackModeHeader
+    ) {
+        var events = new ArrayList<Event>();
+        try (var parser = objectMapper.getFactory().createParser(batchBody(request))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array of events");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Expected an event object at index " + events.size()
+                    );
+                }
+                checkBatchSize(events.size());
+                events.add(toEvent(events.size(), batchRequestReader.readValue(parser, EventRequest.class)));
+            }
+        } catch (BoundedInputStream.LimitExceededException ex) {
+            throw new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE, ex.getMessage(), ex);
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid JSON batch", ex);
+        }
+        return publishBatch(events, AckMode.fromHeader(ackModeHeader));
+    }
+
+    /**
+     * Accepts an Avro object container file of {@link Event} records, written with any schema that
+     * resolves against the current one.
+     */
+    @PostMapping(value = "/batch", consumes = "application/avro")
+    public CompletableFuture<ResponseEntity<BatchResponse>> ingestAvroBatch(
+        HttpServletRequest request,
+        @RequestHeader(name = "x-ack-mode", required = false) String ackModeHeader
+    ) {
+        var events = new ArrayList<Event>();
+        try (var stream = new DataFileStream<>(batchBody(request), new SpecificDatumReader<>(Event.class))) {
+            while (stream.hasNext()) {
+                checkBatchSize(events.size());
+                events.add(stream.next());
+            }
+        } catch (BoundedInputStream.LimitExceededException ex) {
+            throw new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE, ex.getMessage(), ex);
+        } catch (ResponseStatusException ex) {
+            throw ex;
+        } catch (IOException | RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Avro batch", ex);
+        }
+        return publishBatch(events, AckMode.fromHeader(ackModeHeader));
+    }
+
+    private InputStream batchBody(HttpServletRequest request) throws IOException {
+        var maxBytes = batchProperties.maxBytes().toBytes();
+        if (request.getContentLengthLong() > maxBytes) {
+            throw new ResponseStatusException(
+                HttpStatus.CONTENT_TOO_LARGE, "Request body exceeds " + maxBytes + " bytes"
+            );
+        }
+        return new BoundedInputStream(request.getInputStream(), maxBytes);
+    }
+
+    private void checkBatchSize(int events) {
+        if (events >= batchProperties.maxEvents()) {
+            throw new ResponseStatusException(
+                HttpStatus.CONTENT_TOO_LARGE, "Batch exceeds " + batchProperties.maxEvents() + " events"
+            );
+        }
+    }
+
+    private Event toEvent(int index, EventRequest request) {
+        // Every Event field is required, so a missing one would only fail later inside the serializer.
+        if (request.id() == null || request.type() == null || request.payload() == null) {
+            throw new ResponseStatusException(
+                HttpStatus.BAD_REQUEST, "Event at index " + index + " needs an id, type and payload"
+            );
+        }
+        var timestampMs = request.timestampMs() != null ? request.timestampMs() : System.currentTimeMillis();
+        return new Event(request.id(), request.type(), timestampMs, request.payload());
+    }
+
+    private CompletableFuture<ResponseEntity<BatchResponse>> publishBatch(List<Event> events, AckMode ackMode) {
+        return switch (ackMode) {
+            case FIRE_AND_FORGET -> {
+                for (var event : events) {
+                    producer.publishFireAndForget(event, ProducerMetrics.Route.V1_BATCH);
+                }
+                yield CompletableFuture.completedFuture(
+                    ResponseEntity.accepted().body(new BatchResponse(events.size(), 0, List.of()))
+                );
+            }
+            case WAIT_FOR_ACK -> producer.publishAllWaitForAck(events)
+                .thenApply(failedIndexes -> {
+                    var failures = failedIndexes.stream()
+                        .map(index -> new BatchFailure(index, events.get(index).getId()))
+                        .toList();
+                    return ResponseEntity.ok(
+                        new BatchResponse(events.size() - failures.size(), failures.size(), failures)
+                    );
+                });
+        };
+    }
+
     @PostMapping(
         value = "/stream",
         consumes = "application/x-ndjson",
@@ -74,29 +205,20 @@ public class EventController {
         var inputDone = new AtomicBoolean(false);
 
         Thread.ofVirtual().start(() -> {
-            try (var reader = new BufferedReader(
-                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)
-            )) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (line.isBlank()) {
-                        continue;
-                    }
-                    var req = objectMapper.readValue(line, EventRequest.class);
-                    var timestampMs = req.timestampMs() != null ? req.timestampMs() : System.currentTimeMillis();
-                    var event = new Event(req.id(), req.type(), timestampMs, req.payload());
-
+            try (var events = new NdjsonEventReader(objectMapper, request.getInputStream())) {
+                Event event;
+                while ((event = events.next()) != null) {
                     switch (ackMode) {
                         case FIRE_AND_FORGET -> {
-                            producer.publishFireAndForget(event);
+                            producer.publishFireAndForget(event, ProducerMetrics.Route.V1_STREAM);
                             sendAck(emitter, new EventResponse(event.getId(), "queued"));
                         }
                         case WAIT_FOR_ACK -> {
                             if (backpressure != null) {
-                                backpressure.acquireUninterruptibly();
+                                metrics.acquire(backpressure);
                             }
                             inFlight.incrementAndGet();
-                            producer.publishWaitForAck(event).whenComplete((result, ex) -> {
+                            producer.publishWaitForAck(event, ProducerMetrics.Route.V1_STREAM).whenComplete((result, ex) -> {
                                 var status = ex == null ? "acked" : "failed";
                                 var response = new EventResponse(event.getId(), status);
                                 sendAck(emitter, response);
@@ -148,6 +270,12 @@ public class EventController {
     public record EventResponse(String id, String status) {
     }
 
+    public record BatchResponse(int accepted, int failed, List<BatchFailure> failures) {
+    }
+
+    public record BatchFailure(int index, String id) {
+    }
+
     public enum AckMode {
         FIRE_AND_FORGET,
         WAIT_FOR_ACK;
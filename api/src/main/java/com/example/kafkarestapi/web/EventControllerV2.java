@@ -2,11 +2,9 @@ package com.example.kafkarestapi.web;
 
 import com.example.kafkarestapi.avro.Event;
 import com.example.kafkarestapi.service.KafkaEventProducerSchemaRegistry;
+import com.example.kafkarestapi.service.ProducerMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -28,10 +26,16 @@ public class EventControllerV2 {
 
     private final KafkaEventProducerSchemaRegistry producer;
     private final ObjectMapper objectMapper;
+    private final ProducerMetrics metrics;
 
-    public EventControllerV2(KafkaEventProducerSchemaRegistry producer, ObjectMapper objectMapper) {
+    public EventControllerV2(
+        KafkaEventProducerSchemaRegistry producer,
+        ObjectMapper objectMapper,
+        ProducerMetrics metrics
+    ) {
         this.producer = producer;
         this.objectMapper = objectMapper;
+        this.metrics = metrics;
     }
 
     @PostMapping
@@ -75,29 +79,20 @@ public class EventControllerV2 {
         var inputDone = new AtomicBoolean(false);
 
         Thread.ofVirtual().start(() -> {
-            try (var reader = new BufferedReader(
-                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)
-            )) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (line.isBlank()) {
-                        continue;
-                    }
-                    var req = objectMapper.readValue(line, EventController.EventRequest.class);
-                    var timestampMs = req.timestampMs() != null ? req.timestampMs() : System.currentTimeMillis();
-                    var event = new Event(req.id(), req.type(), timestampMs, req.payload());
-
+            try (var events = new NdjsonEventReader(objectMapper, request.getInputStream())) {
+                Event event;
+                while ((event = events.next()) != null) {
                     switch (ackMode) {
                         case FIRE_AND_FORGET -> {
-                            producer.publishFireAndForget(event);
+                            producer.publishFireAndForget(event, ProducerMetrics.Route.V2_STREAM);
                             sendAck(emitter, new EventController.EventResponse(event.getId(), "queued"));
                         }
                         case WAIT_FOR_ACK -> {
                             if (backpressure != null) {
-                                backpressure.acquireUninterruptibly();
+                                metrics.acquire(backpressure);
                             }
                             inFlight.incrementAndGet();
-                            producer.publishWaitForAck(event).whenComplete((result, ex) -> {
+                            producer.publishWaitForAck(event, ProducerMetrics.Route.V2_STREAM).whenComplete((result, ex) -> {
                                 var status = ex == null ? "acked" : "failed";
                                 var response = new EventController.EventResponse(event.getId(), status);
                                 sendAck(emitter, response);
@@ -0,0 +1,91 @@
+package com.example.kafkarestapi.web;
+
+import com.example.kafkarestapi.avro.Event;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads newline-delimited {@code EventRequest} JSON objects from a request body with a single streaming
+ * parser and fills {@link Event} fields directly, without materializing a {@code String} per line or an
+ * intermediate {@code EventRequest}. Blank lines are skipped and unknown fields are ignored, matching the
+ * application's {@code ObjectMapper}. Values are coerced the way Jackson's default binding into
+ * {@code EventRequest} did: scalar ids, types and payloads become their text, and {@code timestampMs} accepts
+ * a fractional number (truncated), a numeric string or an empty string (treated as missing).
+ */
+public class NdjsonEventReader implements Closeable {
+
+    private final JsonParser parser;
+
+    public NdjsonEventReader(ObjectMapper objectMapper, InputStream input) throws IOException {
+        this.parser = objectMapper.getFactory().createParser(input);
+    }
+
+    /**
+     * Returns the next event, or {@code null} at the end of the input.
+     */
+    public Event next() throws IOException {
+        var token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an event object but found " + token);
+        }
+
+        String id = null;
+        String type = null;
+        String payload = null;
+        Long timestampMs = null;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            var value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = text(field, value);
+                case "type" -> type = text(field, value);
+                case "payload" -> payload = text(field, value);
+                case "timestampMs" -> timestampMs = number(field, value);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Event(id, type, timestampMs != null ? timestampMs : System.currentTimeMillis(), payload);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private String text(String field, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!value.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a string for field \"" + field + "\"");
+        }
+        return parser.getValueAsString();
+    }
+
+    private Long number(String field, JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getLongValue();
+            case VALUE_STRING -> {
+                var text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    yield null;
+                }
+                try {
+                    yield Long.parseLong(text);
+                } catch (NumberFormatException ex) {
+                    throw new JsonParseException(parser, "Expected a number for field \"" + field + "\"", ex);
+                }
+            }
+            default -> throw new JsonParseException(parser, "Expected a number for field \"" + field + "\"");
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.kafkarestapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.kafkarestapi.avro.Event;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+@EmbeddedKafka(partitions = 1, topics = {"events", "events-schema-registry"})
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "app.security.enabled=false",
+        "app.kafka.schema-registry-url=mock://embedded-batch",
+        "spring.kafka.properties.security.protocol=PLAINTEXT",
+        "spring.kafka.properties.ssl.keystore.location=",
+        "spring.kafka.properties.ssl.keystore.password=",
+        "spring.kafka.properties.ssl.truststore.location=",
+        "spring.kafka.properties.ssl.truststore.password=",
+        // Events with a large payload fail in the producer, which lets a batch partly fail.
+        "spring.kafka.producer.properties.max.request.size=4096",
+        "app.batch.max-events=3",
+        "logging.level.org.apache.kafka.storage.internals.log=OFF"
+    }
+)
+class EmbeddedKafkaBatchIntegrationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void shouldAckJsonBatch() throws Exception {
+        var response = postBatch("application/json", """
+            [{"id":"evt-batch-1","type":"user.created","payload":"{}"},
+             {"id":"evt-batch-2","type":"user.updated","payload":"{}","unknown":{"nested":true}}]
+            """.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        var body = objectMapper.readTree(response.body());
+        assertThat(body.get("accepted").asInt()).isEqualTo(2);
+        assertThat(body.get("failed").asInt()).isZero();
+        assertThat(body.get("failures")).isEmpty();
+    }
+
+    @Test
+    void shouldAckAvroBatch() throws Exception {
+        var output = new ByteArrayOutputStream();
+        try (var writer = new DataFileWriter<>(new SpecificDatumWriter<>(Event.class))) {
+            writer.create(Event.getClassSchema(), output);
+            writer.append(new Event("evt-batch-avro-1", "user.created", 1L, "{}"));
+            writer.append(new Event("evt-batch-avro-2", "user.updated", 2L, "{}"));
+        }
+
+        var response = postBatch("application/avro", output.toByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        var body = objectMapper.readTree(response.body());
+        assertThat(body.get("accepted").asInt()).isEqualTo(2);
+        assertThat(body.get("failed").asInt()).isZero();
+    }
+
+    @Test
+    void shouldReportFailedEventsByIndex() throws Exception {
+        var tooLarge = "x".repeat(8192);
+        // The ids repeat, so only the index tells the caller which event failed.
+        var request = objectMapper.writeValueAsBytes(List.of(
+            new EventJson("evt-batch-dup", "user.created", "{}"),
+            new EventJson("evt-batch-dup", "user.created", tooLarge),
+            new EventJson("evt-batch-dup", "user.created", "{}")
+        ));
+
+        var response = postBatch("application/json", request);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        var body = objectMapper.readTree(response.body());
+        assertThat(body.get("accepted").asInt()).isEqualTo(2);
+        assertThat(body.get("failed").asInt()).isEqualTo(1);
+        assertThat(body.get("failures")).hasSize(1);
+        assertThat(body.get("failures").get(0).get("index").asInt()).isEqualTo(1);
+        assertThat(body.get("failures").get(0).get("id").asText()).isEqualTo("evt-batch-dup");
+    }
+
+    @Test
+    void shouldRejectEventWithoutId() throws Exception {
+        var response = postBatch("application/json", """
+            [{"id":"evt-batch-3","type":"user.created","payload":"{}"},
+             {"type":"user.created","payload":"{}"}]
+            """.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void shouldRejectBatchOverEventLimit() throws Exception {
+        var event = new EventJson("evt-batch-4", "user.created", "{}");
+        var request = objectMapper.writeValueAsBytes(List.of(event, event, event, event));
+
+        var response = postBatch("application/json", request);
+
+        assertThat(response.statusCode()).isEqualTo(413);
+    }
+
+    private HttpResponse<String> postBatch(String contentType, byte[] body) throws Exception {
+        var client = HttpClient.newHttpClient();
+        var request = HttpRequest.newBuilder()
+            .uri(URI.create("http://localhost:" + port + "/events/batch"))
+            .header("Content-Type", contentType)
+            .header("x-ack-mode", "wait")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private record EventJson(String id, String type, String payload) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.kafkarestapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.producer.BufferExhaustedException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+class ProducerMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProducerMetrics metrics = new ProducerMetrics(meterRegistry);
+
+    @Test
+    void countsTimeoutFromInsideSendAsBlockTimeout() {
+        // KafkaProducer fails the returned future instead of throwing when metadata does not arrive in time.
+        var future = metrics.record(ProducerMetrics.Route.V1_SINGLE, ProducerMetrics.WAIT_FOR_ACK,
+            () -> CompletableFuture.failedFuture(new TimeoutException("Topic events not present in metadata")));
+
+        assertThat(future).isCompletedExceptionally();
+        assertThat(failures("block-timeout")).isEqualTo(1.0);
+        assertThat(failures("delivery-timeout")).isZero();
+    }
+
+    @Test
+    void countsLaterTimeoutAsDeliveryTimeout() {
+        var pending = new CompletableFuture<Object>();
+        metrics.record(ProducerMetrics.Route.V1_SINGLE, ProducerMetrics.WAIT_FOR_ACK, () -> pending);
+
+        pending.completeExceptionally(new TimeoutException("Expiring 1 record(s) for events-0"));
+
+        assertThat(failures("delivery-timeout")).isEqualTo(1.0);
+        assertThat(failures("block-timeout")).isZero();
+    }
+
+    @Test
+    void countsBufferExhaustionSeparatelyFromTimeouts() {
+        assertThatThrownBy(() -> metrics.record(ProducerMetrics.Route.V1_SINGLE, ProducerMetrics.FIRE_AND_FORGET,
+            () -> {
+                throw new BufferExhaustedException("Failed to allocate memory");
+            }))
+            .isInstanceOf(BufferExhaustedException.class);
+
+        assertThat(failures("buffer-exhausted")).isEqualTo(1.0);
+        assertThat(failures("block-timeout")).isZero();
+    }
+
+    private double failures(String reason) {
+        return meterRegistry.get("api.producer.send.failures").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.kafkarestapi.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.kafkarestapi.avro.Event;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class NdjsonEventReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void skipsBlankLines() throws IOException {
+        var events = read("\n{\"id\":\"a\",\"type\":\"t\",\"payload\":\"p\"}\n\n  \r\n"
+            + "{\"id\":\"b\",\"type\":\"t\",\"payload\":\"p\"}\n\n");
+
+        assertThat(events).extracting(Event::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    void ignoresUnknownNestedFields() throws IOException {
+        var events = read("{\"extra\":{\"id\":\"nested\",\"list\":[1,{\"type\":\"x\"}]},\"id\":\"a\","
+            + "\"more\":[[]],\"type\":\"t\",\"payload\":\"p\",\"timestampMs\":5}\n");
+
+        assertThat(events).hasSize(1);
+        var event = events.get(0);
+        assertThat(event.getId()).isEqualTo("a");
+        assertThat(event.getType()).isEqualTo("t");
+        assertThat(event.getPayload()).isEqualTo("p");
+        assertThat(event.getTimestampMs()).isEqualTo(5L);
+    }
+
+    @Test
+    void leavesNullAndMissingFieldsUnsetAndDefaultsTheTimestamp() throws IOException {
+        var before = System.currentTimeMillis();
+        var events = read("{\"id\":null,\"type\":\"t\",\"timestampMs\":null}\n{\"id\":\"b\"}\n");
+        var after = System.currentTimeMillis();
+
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getId()).isNull();
+        assertThat(events.get(0).getPayload()).isNull();
+        assertThat(events.get(0).getTimestampMs()).isBetween(before, after);
+        assertThat(events.get(1).getType()).isNull();
+        assertThat(events.get(1).getTimestampMs()).isBetween(before, after);
+    }
+
+    @Test
+    void acceptsNumericAndStringTimestamps() throws IOException {
+        var events = read("""
+            {"id":"a","timestampMs":1700000000000}
+            {"id":"b","timestampMs":" 1700000000001 "}
+            {"id":"c","timestampMs":1700000000002.9}
+            """);
+
+        assertThat(events).extracting(Event::getTimestampMs)
+            .containsExactly(1700000000000L, 1700000000001L, 1700000000002L);
+    }
+
+    @Test
+    void stringifiesScalarTextFields() throws IOException {
+        var events = read("{\"id\":42,\"type\":true,\"payload\":1.5}\n");
+
+        assertThat(events.get(0).getId()).isEqualTo("42");
+        assertThat(events.get(0).getType()).isEqualTo("true");
+        assertThat(events.get(0).getPayload()).isEqualTo("1.5");
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThatThrownBy(() -> read("{\"id\":\"a\",\"type\":\n"))
+            .isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> read("[{\"id\":\"a\"}]\n"))
+            .isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> read("{\"id\":{\"nested\":true}}\n"))
+            .isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(() -> read("{\"id\":\"a\",\"timestampMs\":\"soon\"}\n"))
+            .isInstanceOf(JsonProcessingException.class);
+    }
+
+    private List<Event> read(String body) throws IOException {
+        var events = new ArrayList<Event>();
+        var input = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        try (var reader = new NdjsonEventReader(objectMapper, input)) {
+            Event event;
+            while ((event = reader.next()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+}
@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "4.0.2"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 description = "Kafka S3 Sink project for Spring Boot"
@@ -10,19 +11,31 @@ extra["springCloudVersion"] = "2025.1.0"
 
 dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-kafka")
+	implementation("org.springframework.boot:spring-boot-starter-web")
+	implementation("org.springframework.boot:spring-boot-starter-actuator")
 	implementation("org.springframework.cloud:spring-cloud-stream")
 	implementation("org.springframework.cloud:spring-cloud-stream-binder-kafka")
 	implementation("org.apache.avro:avro:1.11.4")
 	implementation("io.confluent:kafka-avro-serializer:7.6.0")
 	implementation("org.apache.parquet:parquet-avro:1.14.3")
+	// Parquet codecs and writer settings still use Hadoop's Configuration and compression interfaces,
+	// but no FileSystem: local files go through NioOutputFile, S3 through S3MultipartOutputFile.
 	implementation("org.apache.hadoop:hadoop-common:3.4.1") {
 		exclude(group = "org.slf4j", module = "slf4j-reload4j")
+		exclude(group = "org.eclipse.jetty")
+		exclude(group = "com.sun.jersey")
+		exclude(group = "org.apache.zookeeper")
+		exclude(group = "org.apache.curator")
+		exclude(group = "com.jcraft")
 	}
-	implementation("org.apache.hadoop:hadoop-mapreduce-client-core:3.4.1") {
+	runtimeOnly("org.apache.hadoop:hadoop-mapreduce-client-core:3.4.1") {
 		exclude(group = "org.slf4j", module = "slf4j-reload4j")
+		exclude(group = "org.eclipse.jetty")
+		exclude(group = "com.sun.jersey")
 	}
 	implementation("software.amazon.awssdk:s3:2.25.66")
 	implementation("software.amazon.awssdk:sts:2.25.66")
+	runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 	annotationProcessor("org.springframework.boot:spring-boot-configuration-processor")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testImplementation("org.springframework.boot:spring-boot-starter-kafka-test")
@@ -37,3 +50,12 @@ dependencyManagement {
 		mavenBom("org.springframework.cloud:spring-cloud-dependencies:${property("springCloudVersion")}")
 	}
 }
+
+jmh {
+	jmhVersion = "1.37"
+	profilers = listOf("gc")
+	resultFormat = "JSON"
+	fork = 1
+	warmupIterations = 3
+	iterations = 5
+}
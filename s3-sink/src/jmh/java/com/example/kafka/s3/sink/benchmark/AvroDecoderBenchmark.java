@@ -0,0 +1,84 @@
+package com.example.kafka.s3.sink.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.kafka.s3.sink.avro.AvroDecoder;
+import com.example.kafka.s3.sink.avro.CompositeAvroDecoder;
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.avro.SchemaCache;
+import com.example.kafka.s3.sink.avro.SchemaRegistryAvroDecoder;
+import com.example.kafka.s3.sink.avro.SingleObjectAvroDecoder;
+import com.example.kafka.s3.sink.config.AppProperties;
+
+/**
+ * Decode cost of one Kafka payload: the plain OCF decoder, the same payload routed through the
+ * wire-format dispatch in {@link CompositeAvroDecoder}, and a single-object encoded record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AvroDecoderBenchmark {
+
+	@Param({ "4", "32" })
+	int fields;
+
+	@Param({ "1", "100" })
+	int recordsPerPayload;
+
+	private AvroDecoder decoder;
+	private CompositeAvroDecoder compositeDecoder;
+	private byte[] payload;
+	private byte[] singleObjectPayload;
+
+	@Setup
+	public void setUp() throws IOException {
+		Schema schema = BenchmarkData.schema(fields);
+		List<GenericRecord> records = BenchmarkData.records(schema, recordsPerPayload);
+		payload = BenchmarkData.container(schema, records);
+		ByteBuffer encoded = new BinaryMessageEncoder<GenericRecord>(GenericData.get(), schema).encode(records.get(0));
+		singleObjectPayload = new byte[encoded.remaining()];
+		encoded.get(singleObjectPayload);
+
+		decoder = new AvroDecoder();
+		SchemaCache schemaCache = new SchemaCache(new AppProperties());
+		schemaCache.register(schema);
+		// The registry is never contacted: none of these payloads start with its magic byte.
+		compositeDecoder = new CompositeAvroDecoder(decoder, new SingleObjectAvroDecoder(schemaCache), schemaCache,
+				Optional.of(new SchemaRegistryAvroDecoder("http://localhost:8081")));
+	}
+
+	@Benchmark
+	public DecodedAvro decode() {
+		return decoder.decode(payload);
+	}
+
+	@Benchmark
+	public DecodedAvro compositeDecode() {
+		return compositeDecoder.decode(payload);
+	}
+
+	/**
+	 * One record in single-object encoding, for comparison with {@code recordsPerPayload=1}.
+	 */
+	@Benchmark
+	public DecodedAvro compositeDecodeSingleObject() {
+		return compositeDecoder.decode(singleObjectPayload);
+	}
+}
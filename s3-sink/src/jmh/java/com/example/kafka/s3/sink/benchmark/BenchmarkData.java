@@ -0,0 +1,130 @@
+package com.example.kafka.s3.sink.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.config.TargetType;
+import com.example.kafka.s3.sink.mapping.ParquetPathBuilder;
+import com.example.kafka.s3.sink.mapping.TopicMappingResolver;
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+import com.example.kafka.s3.sink.writer.IntakeControl;
+import com.example.kafka.s3.sink.writer.LocalParquetWriter;
+import com.example.kafka.s3.sink.writer.MemoryBudget;
+import com.example.kafka.s3.sink.writer.S3ParquetWriter;
+import com.example.kafka.s3.sink.writer.UploadStage;
+import com.example.kafka.s3.sink.writer.WriterRouter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+final class BenchmarkData {
+
+	static final String TOPIC = "events";
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Record schema with {@code width} fields cycling through int, long, string and double.
+	 */
+	static Schema schema(int width) {
+		SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("BenchmarkEvent")
+				.namespace("com.example.kafka.s3.sink.benchmark")
+				.fields();
+		for (int i = 0; i < width; i++) {
+			String name = "f" + i;
+			fields = switch (i % 4) {
+				case 0 -> fields.requiredInt(name);
+				case 1 -> fields.requiredLong(name);
+				case 2 -> fields.requiredString(name);
+				default -> fields.requiredDouble(name);
+			};
+		}
+		return fields.endRecord();
+	}
+
+	static GenericRecord record(Schema schema, int seed) {
+		GenericRecord record = new GenericData.Record(schema);
+		for (Schema.Field field : schema.getFields()) {
+			Object value = switch (field.schema().getType()) {
+				case INT -> seed;
+				case LONG -> (long) seed * 31;
+				case STRING -> "value-" + (seed % 1_000) + "-" + field.name();
+				default -> seed / 7.0;
+			};
+			record.put(field.pos(), value);
+		}
+		return record;
+	}
+
+	static List<GenericRecord> records(Schema schema, int count) {
+		List<GenericRecord> records = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			records.add(record(schema, i));
+		}
+		return records;
+	}
+
+	static byte[] container(Schema schema, List<GenericRecord> records) {
+		try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+				DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema))) {
+			writer.create(schema, outputStream);
+			for (GenericRecord record : records) {
+				writer.append(record);
+			}
+			writer.flush();
+			return outputStream.toByteArray();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	static AppProperties localProperties(Path baseDir) {
+		AppProperties properties = new AppProperties();
+		properties.getLocal().setBaseDir(baseDir);
+		AppProperties.TopicMapping mapping = new AppProperties.TopicMapping();
+		mapping.setTopic(TOPIC);
+		mapping.setDestination(TargetType.LOCAL);
+		mapping.setDirectory("out");
+		properties.setMappings(List.of(mapping));
+		return properties;
+	}
+
+	static WriterRouter router(AppProperties properties) {
+		Clock clock = Clock.systemUTC();
+		ParquetConverter converter = new ParquetConverter(new Configuration());
+		TopicMappingResolver resolver = new TopicMappingResolver(properties, new ParquetPathBuilder(clock));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		return new WriterRouter(resolver, new LocalParquetWriter(converter),
+				new S3ParquetWriter(converter, new DiscardingS3Client(), properties, meterRegistry),
+				new UploadStage(properties, meterRegistry), properties, MemoryBudget.unlimited(), IntakeControl.NONE,
+				clock, meterRegistry);
+	}
+
+	static void deleteRecursively(Path directory) {
+		if (directory == null || !Files.exists(directory)) {
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
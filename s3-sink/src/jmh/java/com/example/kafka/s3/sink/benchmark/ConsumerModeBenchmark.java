@@ -0,0 +1,103 @@
+package com.example.kafka.s3.sink.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.avro.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.example.kafka.s3.sink.avro.AvroDecoder;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.stream.AvroToParquetStream;
+import com.example.kafka.s3.sink.stream.DecodeStage;
+import com.example.kafka.s3.sink.writer.WriterRouter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Records per second through the per-record {@code avroToParquet} consumer versus the batch-mode
+ * {@code avroToParquetBatch} consumer for the same poll of single-record OCF payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConsumerModeBenchmark {
+
+	private static final int POLL_SIZE = 500;
+
+	private Path baseDir;
+	private WriterRouter router;
+	private DecodeStage decodeStage;
+	private Consumer<Message<byte[]>> recordConsumer;
+	private Consumer<Message<List<byte[]>>> batchConsumer;
+	private List<Message<byte[]>> records;
+	private Message<List<byte[]>> batch;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		baseDir = Files.createTempDirectory("consumer-mode-benchmark");
+		AppProperties properties = BenchmarkData.localProperties(baseDir);
+		properties.getBatch().setMaxRecords(50_000);
+		router = BenchmarkData.router(properties);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		decodeStage = new DecodeStage(new AvroDecoder(), properties, meterRegistry);
+		AvroToParquetStream stream = new AvroToParquetStream();
+		recordConsumer = stream.avroToParquet(decodeStage, router, meterRegistry);
+		batchConsumer = stream.avroToParquetBatch(decodeStage, router, meterRegistry);
+
+		Schema schema = BenchmarkData.schema(8);
+		List<byte[]> payloads = new ArrayList<>(POLL_SIZE);
+		records = new ArrayList<>(POLL_SIZE);
+		for (int i = 0; i < POLL_SIZE; i++) {
+			byte[] payload = BenchmarkData.container(schema, List.of(BenchmarkData.record(schema, i)));
+			payloads.add(payload);
+			records.add(MessageBuilder.withPayload(payload)
+					.setHeader(KafkaHeaders.RECEIVED_TOPIC, BenchmarkData.TOPIC)
+					.setHeader(KafkaHeaders.RECEIVED_PARTITION, 0)
+					.build());
+		}
+		batch = MessageBuilder.withPayload(payloads)
+				.setHeader(KafkaHeaders.RECEIVED_TOPIC, Collections.nCopies(POLL_SIZE, BenchmarkData.TOPIC))
+				.setHeader(KafkaHeaders.RECEIVED_PARTITION, Collections.nCopies(POLL_SIZE, 0))
+				.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		router.shutdown();
+		decodeStage.shutdown();
+		BenchmarkData.deleteRecursively(baseDir);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POLL_SIZE)
+	public void perRecord() {
+		for (Message<byte[]> record : records) {
+			recordConsumer.accept(record);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POLL_SIZE)
+	public void batch() {
+		batchConsumer.accept(batch);
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.kafka.s3.sink.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * Stand-in S3 client that reads and discards every request body, so the S3 write path can be
+ * benchmarked without network or storage costs.
+ */
+final class DiscardingS3Client implements S3Client {
+
+	@Override
+	public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+		drain(body);
+		return PutObjectResponse.builder().eTag("benchmark").build();
+	}
+
+	@Override
+	public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+		return CreateMultipartUploadResponse.builder().uploadId("benchmark").build();
+	}
+
+	@Override
+	public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+		drain(body);
+		return UploadPartResponse.builder().eTag("part-" + request.partNumber()).build();
+	}
+
+	@Override
+	public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+		return CompleteMultipartUploadResponse.builder().build();
+	}
+
+	@Override
+	public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+		return AbortMultipartUploadResponse.builder().build();
+	}
+
+	@Override
+	public String serviceName() {
+		return SERVICE_NAME;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	private static void drain(RequestBody body) {
+		try (InputStream inputStream = body.contentStreamProvider().newStream()) {
+			inputStream.transferTo(OutputStream.nullOutputStream());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
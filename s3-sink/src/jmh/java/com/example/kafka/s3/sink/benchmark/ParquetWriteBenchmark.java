@@ -0,0 +1,133 @@
+package com.example.kafka.s3.sink.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+import com.example.kafka.s3.sink.writer.LocalParquetWriter;
+import com.example.kafka.s3.sink.writer.S3ParquetWriter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cost of writing one Parquet file of {@code batchSize} records: pure encoding into a discarding
+ * {@link OutputFile}, the local writer, and the S3 multipart writer against a discarding client. Scores
+ * are files per second; multiply by {@code batchSize} for records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParquetWriteBenchmark {
+
+	@Param({ "1", "100", "10000" })
+	int batchSize;
+
+	@Param({ "4", "32" })
+	int fields;
+
+	private Path baseDir;
+	private Path localFile;
+	private ParquetConverter converter;
+	private LocalParquetWriter localWriter;
+	private S3ParquetWriter s3Writer;
+	private DecodedAvro decoded;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		baseDir = Files.createTempDirectory("parquet-write-benchmark");
+		localFile = baseDir.resolve("benchmark.parquet");
+		converter = new ParquetConverter(new Configuration());
+		localWriter = new LocalParquetWriter(converter);
+		s3Writer = new S3ParquetWriter(converter, new DiscardingS3Client(), new AppProperties(),
+				new SimpleMeterRegistry());
+		Schema schema = BenchmarkData.schema(fields);
+		decoded = new DecodedAvro(schema, BenchmarkData.records(schema, batchSize));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkData.deleteRecursively(baseDir);
+	}
+
+	@Benchmark
+	public long encode() throws IOException {
+		DiscardingOutputFile outputFile = new DiscardingOutputFile();
+		try (ParquetWriter<GenericRecord> writer = converter.open(decoded.schema(), outputFile)) {
+			for (GenericRecord record : decoded.records()) {
+				writer.write(record);
+			}
+		}
+		return outputFile.length;
+	}
+
+	@Benchmark
+	public Path localWrite() throws IOException {
+		Files.deleteIfExists(localFile);
+		return localWriter.write(decoded, localFile);
+	}
+
+	@Benchmark
+	public long s3Write() {
+		return s3Writer.write(decoded, "benchmark-bucket", "events/benchmark.parquet");
+	}
+
+	private static final class DiscardingOutputFile implements OutputFile {
+		private long length;
+
+		@Override
+		public PositionOutputStream create(long blockSizeHint) {
+			return new PositionOutputStream() {
+				@Override
+				public long getPos() {
+					return length;
+				}
+
+				@Override
+				public void write(int b) {
+					length++;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					length += len;
+				}
+			};
+		}
+
+		@Override
+		public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+			return create(blockSizeHint);
+		}
+
+		@Override
+		public boolean supportsBlockSize() {
+			return false;
+		}
+
+		@Override
+		public long defaultBlockSize() {
+			return 0;
+		}
+	}
+}
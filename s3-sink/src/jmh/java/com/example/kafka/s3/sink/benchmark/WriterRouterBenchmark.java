@@ -0,0 +1,98 @@
+package com.example.kafka.s3.sink.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.writer.PendingAck;
+import com.example.kafka.s3.sink.writer.ReceivedAvro;
+import com.example.kafka.s3.sink.writer.RecordOrigin;
+import com.example.kafka.s3.sink.writer.WriterRouter;
+
+/**
+ * Buffering cost of {@link WriterRouter} with four writer threads. With one partition every thread
+ * contends for the same buffer lock; with four partitions each thread owns its buffer. Batches are
+ * large so most operations only append, with a local Parquet flush every {@value #MAX_RECORDS} records
+ * per buffer. Scores are records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class WriterRouterBenchmark {
+
+	private static final int MAX_RECORDS = 10_000;
+	private static final int POLL_SIZE = 100;
+
+	@Param({ "1", "4" })
+	int partitions;
+
+	private Path baseDir;
+	private WriterRouter router;
+	private DecodedAvro decoded;
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+		final int index = NEXT_INDEX.getAndIncrement();
+		RecordOrigin origin;
+		List<ReceivedAvro> poll;
+
+		@Setup
+		public void setUp(WriterRouterBenchmark benchmark) {
+			origin = new RecordOrigin(BenchmarkData.TOPIC, index % benchmark.partitions, null);
+			poll = new ArrayList<>(POLL_SIZE);
+			for (int i = 0; i < POLL_SIZE; i++) {
+				poll.add(new ReceivedAvro(origin, benchmark.decoded));
+			}
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		baseDir = Files.createTempDirectory("writer-router-benchmark");
+		AppProperties properties = BenchmarkData.localProperties(baseDir);
+		properties.getBatch().setMaxRecords(MAX_RECORDS);
+		router = BenchmarkData.router(properties);
+		Schema schema = BenchmarkData.schema(8);
+		decoded = new DecodedAvro(schema, List.of(BenchmarkData.record(schema, 1)));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		router.shutdown();
+		BenchmarkData.deleteRecursively(baseDir);
+	}
+
+	@Benchmark
+	public void write(ThreadState thread) {
+		router.write(thread.origin, decoded, PendingAck.NONE);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POLL_SIZE)
+	public void writeAll(ThreadState thread) {
+		router.writeAll(thread.poll, PendingAck.NONE);
+	}
+}
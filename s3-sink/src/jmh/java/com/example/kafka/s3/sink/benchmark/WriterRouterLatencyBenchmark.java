@@ -0,0 +1,70 @@
+package com.example.kafka.s3.sink.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.writer.PendingAck;
+import com.example.kafka.s3.sink.writer.RecordOrigin;
+import com.example.kafka.s3.sink.writer.WriterRouter;
+
+/**
+ * Latency distribution of {@link WriterRouter#write} with four threads sharing one partition while the
+ * interval flusher runs every millisecond. Sample mode reports p99 and p99.9 alongside the mean, which
+ * is where time spent waiting on the buffer lock behind a drain shows up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class WriterRouterLatencyBenchmark {
+
+	@Param({ "1000", "10000" })
+	int maxRecords;
+
+	private Path baseDir;
+	private WriterRouter router;
+	private RecordOrigin origin;
+	private DecodedAvro decoded;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		baseDir = Files.createTempDirectory("writer-router-latency-benchmark");
+		AppProperties properties = BenchmarkData.localProperties(baseDir);
+		properties.getBatch().setMaxRecords(maxRecords);
+		properties.getBatch().setFlushInterval(Duration.ofMillis(1));
+		router = BenchmarkData.router(properties);
+		origin = new RecordOrigin(BenchmarkData.TOPIC, 0, null);
+		Schema schema = BenchmarkData.schema(8);
+		decoded = new DecodedAvro(schema, List.of(BenchmarkData.record(schema, 1)));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		router.shutdown();
+		BenchmarkData.deleteRecursively(baseDir);
+	}
+
+	@Benchmark
+	public void write() {
+		router.write(origin, decoded, PendingAck.NONE);
+	}
+}
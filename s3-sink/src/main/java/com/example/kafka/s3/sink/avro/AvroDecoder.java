@@ -2,20 +2,116 @@ package com.example.kafka.s3.sink.avro;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.file.DataFileStream;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
 import org.springframework.stereotype.Component;
 
+/**
+ * Decodes Avro object container files. Uncompressed containers are parsed directly: the header schema
+ * is fingerprinted and the parsed {@link Schema} and its datum reader are cached per fingerprint, so
+ * payloads sharing a schema decode to the same {@code Schema} instance without re-parsing the JSON.
+ * Compressed containers fall back to {@link DataFileStream}.
+ */
 @Component
 public class AvroDecoder implements AvroDecoderInterface {
 
+	private static final int MAX_CACHED_SCHEMAS = 1_000;
+
+	private final Map<Long, CachedSchema> schemas = new ConcurrentHashMap<>();
+	private final ThreadLocal<BinaryDecoder> decoders = new ThreadLocal<>();
+
 	@Override
 	public DecodedAvro decode(byte[] payload) {
+		try {
+			BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(payload, decoders.get());
+			decoders.set(decoder);
+
+			byte[] magic = new byte[DataFileConstants.MAGIC.length];
+			decoder.readFixed(magic);
+			if (!Arrays.equals(magic, DataFileConstants.MAGIC)) {
+				throw new IOException("Not an Avro data file");
+			}
+
+			byte[] schemaJson = null;
+			String codec = DataFileConstants.NULL_CODEC;
+			for (long entries = decoder.readMapStart(); entries != 0; entries = decoder.mapNext()) {
+				for (long i = 0; i < entries; i++) {
+					String key = decoder.readString();
+					ByteBuffer value = decoder.readBytes(null);
+					if (DataFileConstants.SCHEMA.equals(key)) {
+						schemaJson = new byte[value.remaining()];
+						value.get(schemaJson);
+					} else if (DataFileConstants.CODEC.equals(key)) {
+						codec = StandardCharsets.UTF_8.decode(value).toString();
+					}
+				}
+			}
+			if (schemaJson == null) {
+				throw new IOException("Avro data file header has no schema");
+			}
+			if (!DataFileConstants.NULL_CODEC.equals(codec)) {
+				return decodeStream(payload);
+			}
+
+			byte[] sync = new byte[DataFileConstants.SYNC_SIZE];
+			decoder.readFixed(sync);
+
+			CachedSchema cached = cachedSchema(schemaJson);
+			List<GenericRecord> records = new ArrayList<>();
+			byte[] blockSync = new byte[DataFileConstants.SYNC_SIZE];
+			while (!decoder.isEnd()) {
+				long blockCount = decoder.readLong();
+				decoder.readLong(); // block size in bytes, not needed without a codec
+				for (long i = 0; i < blockCount; i++) {
+					// Records are buffered by the router, so instances cannot be reused across reads.
+					records.add(cached.reader().read(null, decoder));
+				}
+				decoder.readFixed(blockSync);
+				if (!Arrays.equals(sync, blockSync)) {
+					throw new IOException("Invalid sync marker in Avro data file");
+				}
+			}
+			if (records.isEmpty()) {
+				throw new AvroDecodingException("Avro payload contained no records", null);
+			}
+			return new DecodedAvro(cached.schema(), records);
+		} catch (AvroDecodingException ex) {
+			throw ex;
+		} catch (IOException | RuntimeException ex) {
+			throw new AvroDecodingException("Failed to decode Avro payload", ex);
+		}
+	}
+
+	private CachedSchema cachedSchema(byte[] schemaJson) {
+		long fingerprint = SchemaNormalization.fingerprint64(schemaJson);
+		CachedSchema cached = schemas.get(fingerprint);
+		if (cached != null && Arrays.equals(cached.json(), schemaJson)) {
+			return cached;
+		}
+		Schema schema = new Schema.Parser().parse(new String(schemaJson, StandardCharsets.UTF_8));
+		cached = new CachedSchema(schemaJson, schema, new GenericDatumReader<>(schema));
+		if (schemas.size() >= MAX_CACHED_SCHEMAS) {
+			schemas.clear();
+		}
+		schemas.put(fingerprint, cached);
+		return cached;
+	}
+
+	private DecodedAvro decodeStream(byte[] payload) throws IOException {
 		try (DataFileStream<GenericRecord> stream = new DataFileStream<>(
 				new ByteArrayInputStream(payload), new GenericDatumReader<>())) {
 			Schema schema = stream.getSchema();
@@ -27,8 +123,9 @@ public class AvroDecoder implements AvroDecoderInterface {
 				throw new AvroDecodingException("Avro payload contained no records", null);
 			}
 			return new DecodedAvro(schema, records);
-		} catch (IOException ex) {
-			throw new AvroDecodingException("Failed to decode Avro payload", ex);
 		}
 	}
+
+	private record CachedSchema(byte[] json, Schema schema, GenericDatumReader<GenericRecord> reader) {
+	}
 }
@@ -1,29 +1,45 @@
 package com.example.kafka.s3.sink.avro;
 
-import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import java.util.Optional;
+
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
+/**
+ * Dispatches on the payload's wire format: Confluent Schema Registry (magic byte {@code 0}, when a
+ * registry is configured), Avro single-object encoding ({@code C3 01}) or an object container file.
+ */
 @Component
 @Primary
-@ConditionalOnExpression("'${app.schema-registry-url:}'.trim().length() > 0")
 public class CompositeAvroDecoder implements AvroDecoderInterface {
 
 	private static final byte SCHEMA_REGISTRY_MAGIC = 0;
 
 	private final AvroDecoder ocfDecoder;
+	private final SingleObjectAvroDecoder singleObjectDecoder;
+	private final SchemaCache schemaCache;
 	private final SchemaRegistryAvroDecoder schemaRegistryDecoder;
 
-	public CompositeAvroDecoder(AvroDecoder ocfDecoder, SchemaRegistryAvroDecoder schemaRegistryDecoder) {
+	public CompositeAvroDecoder(AvroDecoder ocfDecoder, SingleObjectAvroDecoder singleObjectDecoder,
+			SchemaCache schemaCache, Optional<SchemaRegistryAvroDecoder> schemaRegistryDecoder) {
 		this.ocfDecoder = ocfDecoder;
-		this.schemaRegistryDecoder = schemaRegistryDecoder;
+		this.singleObjectDecoder = singleObjectDecoder;
+		this.schemaCache = schemaCache;
+		this.schemaRegistryDecoder = schemaRegistryDecoder.orElse(null);
 	}
 
 	@Override
 	public DecodedAvro decode(byte[] payload) {
-		if (payload != null && payload.length >= 5 && payload[0] == SCHEMA_REGISTRY_MAGIC) {
+		if (schemaRegistryDecoder != null && payload != null && payload.length >= 5
+				&& payload[0] == SCHEMA_REGISTRY_MAGIC) {
 			return schemaRegistryDecoder.decode(payload);
 		}
-		return ocfDecoder.decode(payload);
+		if (SingleObjectAvroDecoder.isSingleObject(payload)) {
+			return singleObjectDecoder.decode(payload);
+		}
+		DecodedAvro decoded = ocfDecoder.decode(payload);
+		// Lets single-object payloads written with the same schema be decoded later.
+		schemaCache.register(decoded.schema());
+		return decoded;
 	}
 }
@@ -0,0 +1,67 @@
+package com.example.kafka.s3.sink.avro;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+
+/**
+ * Writer schemas known to the sink, keyed by their 64-bit Avro parsing fingerprint, for payloads that
+ * carry only a fingerprint. Schemas are loaded from {@code app.avro.schemaLocations} at startup and
+ * learned from every object container file the sink decodes.
+ */
+@Component
+public class SchemaCache {
+
+	private final Map<Long, Entry> byFingerprint = new ConcurrentHashMap<>();
+	private final Map<Schema, Long> registered = new ConcurrentHashMap<>();
+
+	public SchemaCache(AppProperties properties) {
+		ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+		for (String location : properties.getAvro().getSchemaLocations()) {
+			load(resolver, location);
+		}
+	}
+
+	public void register(Schema schema) {
+		// Decoders hand out one Schema instance per header, so this is a cached-hash lookup after the first call.
+		registered.computeIfAbsent(schema, ignored -> {
+			long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+			byFingerprint.putIfAbsent(fingerprint, new Entry(schema, new GenericDatumReader<>(schema)));
+			return fingerprint;
+		});
+	}
+
+	public Entry find(long fingerprint) {
+		return byFingerprint.get(fingerprint);
+	}
+
+	private void load(ResourcePatternResolver resolver, String location) {
+		try {
+			for (Resource resource : resolver.getResources(location)) {
+				if (!resource.exists()) {
+					throw new IllegalStateException("Avro schema not found: " + resource.getDescription());
+				}
+				try (InputStream inputStream = resource.getInputStream()) {
+					register(new Schema.Parser().parse(inputStream));
+				}
+			}
+		} catch (IOException ex) {
+			throw new IllegalStateException("Failed to load Avro schemas from " + location, ex);
+		}
+	}
+
+	public record Entry(Schema schema, GenericDatumReader<GenericRecord> reader) {
+	}
+}
@@ -0,0 +1,53 @@
+package com.example.kafka.s3.sink.avro;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decodes Avro single-object encoded payloads: the marker {@code C3 01}, the little-endian 64-bit
+ * parsing fingerprint of the writer schema and the binary record. The writer schema is resolved from
+ * the {@link SchemaCache}.
+ */
+@Component
+public class SingleObjectAvroDecoder {
+
+	private static final int HEADER_LENGTH = 10;
+
+	private final SchemaCache schemaCache;
+	private final ThreadLocal<BinaryDecoder> decoders = new ThreadLocal<>();
+
+	public SingleObjectAvroDecoder(SchemaCache schemaCache) {
+		this.schemaCache = schemaCache;
+	}
+
+	public static boolean isSingleObject(byte[] payload) {
+		return payload != null && payload.length >= HEADER_LENGTH
+				&& payload[0] == (byte) 0xC3 && payload[1] == (byte) 0x01;
+	}
+
+	public DecodedAvro decode(byte[] payload) {
+		long fingerprint = 0;
+		for (int i = HEADER_LENGTH - 1; i >= 2; i--) {
+			fingerprint = (fingerprint << 8) | (payload[i] & 0xFF);
+		}
+		SchemaCache.Entry entry = schemaCache.find(fingerprint);
+		if (entry == null) {
+			throw new AvroDecodingException("Unknown schema fingerprint " + Long.toHexString(fingerprint)
+					+ " in single-object Avro payload", null);
+		}
+		try {
+			BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(
+					payload, HEADER_LENGTH, payload.length - HEADER_LENGTH, decoders.get());
+			decoders.set(decoder);
+			GenericRecord record = entry.reader().read(null, decoder);
+			return new DecodedAvro(entry.schema(), List.of(record));
+		} catch (IOException | RuntimeException ex) {
+			throw new AvroDecodingException("Failed to decode single-object Avro payload", ex);
+		}
+	}
+}
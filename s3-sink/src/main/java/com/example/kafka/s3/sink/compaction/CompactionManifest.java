@@ -0,0 +1,37 @@
+package com.example.kafka.s3.sink.compaction;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Written to {@value PartitionStore#MANIFEST_NAME} in a partition once the merged files are staged. Writing
+ * it commits the swap: from then on readers honouring it ignore the {@code removed} files and read the
+ * {@code added} ones, from staging until they are published, and a crash is rolled forward on the next run.
+ * It stays in place until the next swap in the partition replaces it.
+ */
+record CompactionManifest(List<String> added, List<String> removed) {
+
+	private static final String ADDED = "added ";
+	private static final String REMOVED = "removed ";
+
+	byte[] toBytes() {
+		StringBuilder text = new StringBuilder();
+		added.forEach(name -> text.append(ADDED).append(name).append('\n'));
+		removed.forEach(name -> text.append(REMOVED).append(name).append('\n'));
+		return text.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	static CompactionManifest parse(byte[] bytes) {
+		List<String> added = new ArrayList<>();
+		List<String> removed = new ArrayList<>();
+		for (String line : new String(bytes, StandardCharsets.UTF_8).split("\n")) {
+			if (line.startsWith(ADDED)) {
+				added.add(line.substring(ADDED.length()));
+			} else if (line.startsWith(REMOVED)) {
+				removed.add(line.substring(REMOVED.length()));
+			}
+		}
+		return new CompactionManifest(List.copyOf(added), List.copyOf(removed));
+	}
+}
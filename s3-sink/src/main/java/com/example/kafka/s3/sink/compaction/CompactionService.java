@@ -0,0 +1,259 @@
+package com.example.kafka.s3.sink.compaction;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.io.InputFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.config.TargetType;
+import com.example.kafka.s3.sink.mapping.TopicMappingResolver;
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+import com.example.kafka.s3.sink.writer.WriteTarget;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Periodically merges small Parquet files in each output partition into files of about
+ * {@code app.compaction.targetFileSize}. Merged files are staged under hidden names, then a
+ * {@value PartitionStore#MANIFEST_NAME} listing the swap is written, which commits it, before the staged
+ * files are published and the originals deleted. Readers that list a partition through
+ * {@link #readableFiles} see the swap atomically. A run interrupted at any point is rolled forward, or its
+ * staged files discarded, on the next pass over the partition. Only one sink instance should run compaction.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.compaction", name = "enabled", havingValue = "true")
+public class CompactionService {
+
+	private static final Logger log = LoggerFactory.getLogger(CompactionService.class);
+
+	private final AppProperties properties;
+	private final TopicMappingResolver resolver;
+	private final S3Client s3Client;
+	private final ParquetFileMerger merger;
+	private final Clock clock;
+	private final MeterRegistry meterRegistry;
+	private final Counter inputFiles;
+	private final Counter outputFiles;
+	private final Counter failures;
+	private final Timer partitionTime;
+	private final ScheduledExecutorService scheduler;
+
+	public CompactionService(AppProperties properties, TopicMappingResolver resolver, S3Client s3Client,
+			ParquetConverter converter, Configuration hadoopConfiguration, Clock clock, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.resolver = resolver;
+		this.s3Client = s3Client;
+		this.merger = new ParquetFileMerger(converter, hadoopConfiguration);
+		this.clock = clock;
+		this.meterRegistry = meterRegistry;
+		this.inputFiles = Counter.builder("sink.compaction.files")
+				.description("Small Parquet files replaced by compaction")
+				.tag("role", "input")
+				.register(meterRegistry);
+		this.outputFiles = Counter.builder("sink.compaction.files")
+				.description("Merged Parquet files published by compaction")
+				.tag("role", "output")
+				.register(meterRegistry);
+		this.failures = Counter.builder("sink.compaction.failures")
+				.description("Partitions whose compaction failed and will be retried")
+				.register(meterRegistry);
+		this.partitionTime = Timer.builder("sink.compaction.time")
+				.description("Time to compact one partition")
+				.register(meterRegistry);
+		long interval = properties.getCompaction().getInterval().toMillis();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(
+				Thread.ofPlatform().name("parquet-compactor").daemon(true).factory());
+		scheduler.scheduleWithFixedDelay(this::compactAll, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Lists the files a reader should open in one partition of {@code topic}, e.g. {@code date=2024-01-01},
+	 * hiding files replaced by a committed swap and including merged files that are not yet published.
+	 */
+	public List<String> readableFiles(String topic, String partition) throws IOException {
+		return store(resolver.resolveTopicRoot(topic)).readableFiles(partition);
+	}
+
+	public void compactAll() {
+		for (String topic : resolver.knownTopics()) {
+			WriteTarget root;
+			PartitionStore store;
+			List<String> partitions;
+			try {
+				root = resolver.resolveTopicRoot(topic);
+				store = store(root);
+				partitions = store.partitions();
+			} catch (IOException | RuntimeException ex) {
+				log.warn("Skipping compaction for topic {}", topic, ex);
+				continue;
+			}
+			for (String partition : partitions) {
+				Timer.Sample sample = Timer.start(meterRegistry);
+				try {
+					compact(store, partition, root.parquet());
+				} catch (IOException | RuntimeException ex) {
+					failures.increment();
+					log.warn("Compaction of {}/{} failed", store.location(), partition, ex);
+				} finally {
+					sample.stop(partitionTime);
+				}
+			}
+		}
+	}
+
+	void compact(PartitionStore store, String partition, AppProperties.ParquetProperties options)
+			throws IOException {
+		List<PartitionStore.DataFile> files = recover(store, partition);
+		AppProperties.CompactionProperties compaction = properties.getCompaction();
+		Instant cutoff = clock.instant().minus(compaction.getMinAge());
+		long smallFileSize = compaction.getSmallFileSize().toBytes();
+		List<PartitionStore.DataFile> candidates = files.stream()
+				.filter(file -> file.size() < smallFileSize && file.lastModified().isBefore(cutoff))
+				.sorted(Comparator.comparing(PartitionStore.DataFile::lastModified)
+						.thenComparing(PartitionStore.DataFile::name))
+				.toList();
+		if (candidates.size() < Math.max(compaction.getMinFiles(), 2)) {
+			return;
+		}
+
+		long targetFileSize = compaction.getTargetFileSize().toBytes();
+		List<String> added = new ArrayList<>();
+		List<String> removed = new ArrayList<>();
+		List<PartitionStore.Staged> staged = new ArrayList<>();
+		Bin bin = new Bin();
+		try {
+			for (PartitionStore.DataFile file : candidates) {
+				InputFile input = store.inputFile(partition, file);
+				Schema schema = ParquetFileMerger.avroSchema(ParquetFileMerger.footer(input));
+				if (schema == null) {
+					continue;
+				}
+				if (!bin.accepts(schema, file.size(), targetFileSize)) {
+					mergeBin(store, partition, bin, options, staged, added, removed);
+					bin = new Bin();
+				}
+				bin.add(file, input, schema);
+			}
+			mergeBin(store, partition, bin, options, staged, added, removed);
+		} catch (IOException | RuntimeException ex) {
+			staged.forEach(output -> output.abort().run());
+			store.discardStaged(partition);
+			throw ex;
+		}
+		if (added.isEmpty()) {
+			return;
+		}
+		CompactionManifest manifest = new CompactionManifest(List.copyOf(added), List.copyOf(removed));
+		store.writeManifest(partition, manifest);
+		rollForward(store, partition, manifest);
+		inputFiles.increment(removed.size());
+		outputFiles.increment(added.size());
+		log.info("Compacted {} files into {} in {}/{}", removed.size(), added.size(), store.location(), partition);
+	}
+
+	private void mergeBin(PartitionStore store, String partition, Bin bin, AppProperties.ParquetProperties options,
+			List<PartitionStore.Staged> staged, List<String> added, List<String> removed) throws IOException {
+		if (bin.names.size() < 2) {
+			return;
+		}
+		String name = UUID.randomUUID() + ".parquet";
+		PartitionStore.Staged output = store.stage(partition, name);
+		staged.add(output);
+		merger.merge(bin.inputs, output.outputFile(), options);
+		added.add(name);
+		removed.addAll(bin.names);
+	}
+
+	/**
+	 * Finishes the last committed swap if it was interrupted and discards uncommitted staged outputs.
+	 * The manifest stays in place until the next swap replaces it, so readers can keep honouring it.
+	 */
+	private static List<PartitionStore.DataFile> recover(PartitionStore store, String partition) throws IOException {
+		Optional<CompactionManifest> manifest = store.readManifest(partition);
+		List<PartitionStore.DataFile> files = store.dataFiles(partition);
+		if (manifest.isPresent() && !isFinished(manifest.get(), files)) {
+			log.info("Rolling forward interrupted compaction in {}/{}", store.location(), partition);
+			rollForward(store, partition, manifest.get());
+			files = store.dataFiles(partition);
+		}
+		store.discardStaged(partition);
+		return files;
+	}
+
+	private static boolean isFinished(CompactionManifest manifest, List<PartitionStore.DataFile> files) {
+		Set<String> names = files.stream().map(PartitionStore.DataFile::name).collect(Collectors.toSet());
+		return names.containsAll(manifest.added()) && manifest.removed().stream().noneMatch(names::contains);
+	}
+
+	private static void rollForward(PartitionStore store, String partition, CompactionManifest manifest)
+			throws IOException {
+		for (String name : manifest.added()) {
+			if (store.isStaged(partition, name)) {
+				store.publish(partition, name);
+			}
+		}
+		store.delete(partition, manifest.removed());
+	}
+
+	private PartitionStore store(WriteTarget root) {
+		if (root.type() == TargetType.LOCAL) {
+			return new LocalPartitionStore(root.localPath());
+		}
+		return new S3PartitionStore(s3Client, root.bucket(), root.key(),
+				Math.toIntExact(properties.getS3().getPartSize().toBytes()), meterRegistry);
+	}
+
+	/**
+	 * Files merged into one output. Every schema in the bin must be readable with the newest one.
+	 */
+	private static final class Bin {
+		private final List<String> names = new ArrayList<>();
+		private final List<InputFile> inputs = new ArrayList<>();
+		private final List<Schema> schemas = new ArrayList<>();
+		private long size;
+
+		boolean accepts(Schema schema, long fileSize, long targetFileSize) {
+			if (names.isEmpty()) {
+				return true;
+			}
+			return size + fileSize <= targetFileSize
+					&& schemas.stream().allMatch(existing -> ParquetFileMerger.canRead(schema, existing));
+		}
+
+		void add(PartitionStore.DataFile file, InputFile input, Schema schema) {
+			names.add(file.name());
+			inputs.add(input);
+			size += file.size();
+			if (!schemas.contains(schema)) {
+				schemas.add(schema);
+			}
+		}
+	}
+}
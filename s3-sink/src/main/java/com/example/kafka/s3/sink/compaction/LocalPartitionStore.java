@@ -0,0 +1,145 @@
+package com.example.kafka.s3.sink.compaction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.LocalInputFile;
+
+import com.example.kafka.s3.sink.parquet.NioOutputFile;
+
+/**
+ * Local directory layout: staged outputs are hidden {@code .<name>.compacting} files next to the data and
+ * are published with an atomic rename.
+ */
+class LocalPartitionStore implements PartitionStore {
+
+	private static final String STAGED_SUFFIX = ".compacting";
+
+	private final Path root;
+
+	LocalPartitionStore(Path root) {
+		this.root = root;
+	}
+
+	@Override
+	public String location() {
+		return root.toString();
+	}
+
+	@Override
+	public String location(String partition, String name) {
+		return root.resolve(partition).resolve(name).toString();
+	}
+
+	@Override
+	public String stagedLocation(String partition, String name) {
+		return staged(partition, name).toString();
+	}
+
+	@Override
+	public List<String> partitions() throws IOException {
+		if (!Files.isDirectory(root)) {
+			return List.of();
+		}
+		try (Stream<Path> paths = Files.walk(root)) {
+			return paths
+					.filter(Files::isRegularFile)
+					.filter(path -> isDataFile(path.getFileName().toString())
+							|| path.getFileName().toString().equals(MANIFEST_NAME))
+					.map(path -> root.relativize(path.getParent()).toString().replace('\\', '/'))
+					.filter(partition -> !partition.isEmpty() && !PartitionStore.isHidden(partition))
+					.distinct()
+					.toList();
+		}
+	}
+
+	@Override
+	public List<DataFile> dataFiles(String partition) throws IOException {
+		List<DataFile> files = new ArrayList<>();
+		try (Stream<Path> paths = Files.list(root.resolve(partition))) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				String name = path.getFileName().toString();
+				if (Files.isRegularFile(path) && isDataFile(name)) {
+					files.add(new DataFile(name, Files.size(path), Files.getLastModifiedTime(path).toInstant()));
+				}
+			}
+		}
+		return files;
+	}
+
+	@Override
+	public InputFile inputFile(String partition, DataFile file) {
+		return new LocalInputFile(root.resolve(partition).resolve(file.name()));
+	}
+
+	@Override
+	public Staged stage(String partition, String name) {
+		NioOutputFile outputFile = new NioOutputFile(staged(partition, name));
+		return new Staged(outputFile, outputFile::abort);
+	}
+
+	@Override
+	public boolean isStaged(String partition, String name) {
+		return Files.exists(staged(partition, name));
+	}
+
+	@Override
+	public void publish(String partition, String name) throws IOException {
+		Files.move(staged(partition, name), root.resolve(partition).resolve(name), StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	@Override
+	public void discardStaged(String partition) throws IOException {
+		try (Stream<Path> paths = Files.list(root.resolve(partition))) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				String name = path.getFileName().toString();
+				if (name.startsWith(".") && name.endsWith(STAGED_SUFFIX)) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void delete(String partition, List<String> names) throws IOException {
+		for (String name : names) {
+			Files.deleteIfExists(root.resolve(partition).resolve(name));
+		}
+	}
+
+	@Override
+	public Optional<CompactionManifest> readManifest(String partition) throws IOException {
+		try {
+			return Optional.of(CompactionManifest.parse(Files.readAllBytes(manifest(partition))));
+		} catch (NoSuchFileException ex) {
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public void writeManifest(String partition, CompactionManifest manifest) throws IOException {
+		Path temp = root.resolve(partition).resolve("." + MANIFEST_NAME + ".tmp");
+		Files.write(temp, manifest.toBytes());
+		Files.move(temp, manifest(partition), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private Path staged(String partition, String name) {
+		return root.resolve(partition).resolve("." + name + STAGED_SUFFIX);
+	}
+
+	private Path manifest(String partition) {
+		return root.resolve(partition).resolve(MANIFEST_NAME);
+	}
+
+	private static boolean isDataFile(String name) {
+		return name.endsWith(".parquet") && !name.startsWith(".") && !name.startsWith("_");
+	}
+}
@@ -0,0 +1,121 @@
+package com.example.kafka.s3.sink.compaction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaCompatibility;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.avro.AvroReadSupport;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.io.OutputFile;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+
+/**
+ * Merges Parquet files written by the sink into one file. Inputs written with the output's Avro schema
+ * have their row groups copied as-is, without decompressing or decoding any pages. Older inputs whose
+ * schema the output schema can still read are rewritten through Avro schema resolution first.
+ */
+class ParquetFileMerger {
+
+	static final String AVRO_SCHEMA_KEY = "parquet.avro.schema";
+
+	private final ParquetConverter converter;
+	private final Configuration hadoopConfiguration;
+
+	ParquetFileMerger(ParquetConverter converter, Configuration hadoopConfiguration) {
+		this.converter = converter;
+		this.hadoopConfiguration = hadoopConfiguration;
+	}
+
+	static FileMetaData footer(InputFile file) throws IOException {
+		try (ParquetFileReader reader = ParquetFileReader.open(file)) {
+			return reader.getFooter().getFileMetaData();
+		}
+	}
+
+	/**
+	 * Returns the Avro schema stored in the footer, or {@code null} for files not written through
+	 * parquet-avro.
+	 */
+	static Schema avroSchema(FileMetaData footer) {
+		String schema = footer.getKeyValueMetaData().get(AVRO_SCHEMA_KEY);
+		return schema != null ? new Schema.Parser().parse(schema) : null;
+	}
+
+	static boolean canRead(Schema reader, Schema writer) {
+		return reader.equals(writer) || SchemaCompatibility.checkReaderWriterCompatibility(reader, writer)
+				.getType() == SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE;
+	}
+
+	/**
+	 * Writes {@code inputs} to {@code output} in order. The last input defines the output schema and every
+	 * other input must be readable with it.
+	 */
+	void merge(List<InputFile> inputs, OutputFile output, AppProperties.ParquetProperties options)
+			throws IOException {
+		FileMetaData target = footer(inputs.getLast());
+		Schema targetSchema = avroSchema(target);
+		Map<String, String> metadata = target.getKeyValueMetaData();
+		long rowGroupSize = options != null && options.getRowGroupSize() != null
+				? options.getRowGroupSize().toBytes()
+				: ParquetWriter.DEFAULT_BLOCK_SIZE;
+		ParquetFileWriter writer = new ParquetFileWriter(output, target.getSchema(), ParquetFileWriter.Mode.CREATE,
+				rowGroupSize, 0);
+		writer.start();
+		for (InputFile input : inputs) {
+			if (targetSchema.equals(avroSchema(footer(input)))) {
+				writer.appendFile(input);
+			} else {
+				Path rewritten = rewrite(input, targetSchema, options);
+				try {
+					writer.appendFile(new LocalInputFile(rewritten));
+				} finally {
+					Files.deleteIfExists(rewritten);
+				}
+			}
+		}
+		writer.end(metadata);
+	}
+
+	/**
+	 * Rewrites {@code input} with {@code targetSchema} into a temporary file that the caller deletes.
+	 */
+	private Path rewrite(InputFile input, Schema targetSchema, AppProperties.ParquetProperties options)
+			throws IOException {
+		Configuration configuration = new Configuration(hadoopConfiguration);
+		AvroReadSupport.setAvroReadSchema(configuration, targetSchema);
+		Path temp = Files.createTempFile("parquet-compaction-", ".parquet");
+		try {
+			Files.delete(temp);
+			try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(input)
+					.withDataModel(GenericData.get())
+					.withConf(configuration)
+					.build();
+					ParquetWriter<GenericRecord> writer = converter.open(targetSchema, temp, options)) {
+				GenericRecord record;
+				while ((record = reader.read()) != null) {
+					writer.write(record);
+				}
+			}
+			return temp;
+		} catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(temp);
+			throw ex;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.kafka.s3.sink.compaction;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+
+/**
+ * Storage operations compaction needs under one topic root. Partitions are paths relative to the root
+ * using {@code /} separators, e.g. {@code date=2024-01-01}. Names starting with {@code _} or {@code .}
+ * are never treated as data files, so staged outputs and manifests stay invisible to query engines.
+ */
+interface PartitionStore {
+
+	String MANIFEST_NAME = "_compaction.manifest";
+
+	String location();
+
+	/**
+	 * Location a reader opens for the published data file {@code name}, e.g. a path or an {@code s3://} URI.
+	 */
+	String location(String partition, String name);
+
+	/**
+	 * Location of the staged output that {@link #publish} will make visible under {@code name}.
+	 */
+	String stagedLocation(String partition, String name);
+
+	List<String> partitions() throws IOException;
+
+	List<DataFile> dataFiles(String partition) throws IOException;
+
+	/**
+	 * Opens a data file for ranged reads, so merging never holds whole inputs in memory.
+	 */
+	InputFile inputFile(String partition, DataFile file) throws IOException;
+
+	/**
+	 * Opens a hidden output that {@link #publish} later makes visible under {@code name}.
+	 */
+	Staged stage(String partition, String name) throws IOException;
+
+	boolean isStaged(String partition, String name) throws IOException;
+
+	void publish(String partition, String name) throws IOException;
+
+	/**
+	 * Removes staged outputs that were never recorded in a manifest, e.g. after a crash mid-merge.
+	 */
+	void discardStaged(String partition) throws IOException;
+
+	void delete(String partition, List<String> names) throws IOException;
+
+	Optional<CompactionManifest> readManifest(String partition) throws IOException;
+
+	/**
+	 * Atomically replaces the partition's manifest. Writing it commits the swap it describes.
+	 */
+	void writeManifest(String partition, CompactionManifest manifest) throws IOException;
+
+	/**
+	 * Lists the locations a reader should open so that every compaction swap appears atomic. Once a
+	 * manifest is written its {@code removed} files are hidden and its {@code added} files are read from
+	 * staging until they are published. The manifest is read before and after listing, and the listing is
+	 * repeated if a swap was committed in between.
+	 */
+	default List<String> readableFiles(String partition) throws IOException {
+		while (true) {
+			Optional<CompactionManifest> before = readManifest(partition);
+			List<DataFile> files = dataFiles(partition);
+			Optional<CompactionManifest> after = readManifest(partition);
+			if (before.equals(after)) {
+				return readableFiles(partition, files, after);
+			}
+		}
+	}
+
+	private List<String> readableFiles(String partition, List<DataFile> files, Optional<CompactionManifest> manifest)
+			throws IOException {
+		Set<String> removed = manifest.map(committed -> Set.copyOf(committed.removed())).orElse(Set.of());
+		Set<String> listed = new HashSet<>();
+		List<String> locations = new ArrayList<>();
+		for (DataFile file : files) {
+			listed.add(file.name());
+			if (!removed.contains(file.name())) {
+				locations.add(location(partition, file.name()));
+			}
+		}
+		if (manifest.isPresent()) {
+			for (String name : manifest.get().added()) {
+				if (!listed.contains(name)) {
+					// Not yet published when listed; it may have been published since.
+					locations.add(isStaged(partition, name) ? stagedLocation(partition, name) : location(partition, name));
+				}
+			}
+		}
+		return locations;
+	}
+
+	/**
+	 * Whether any segment of a partition path starts with {@code _} or {@code .}, as staging directories
+	 * and other tool metadata do. Such paths are never compacted.
+	 */
+	static boolean isHidden(String partition) {
+		for (String segment : partition.split("/")) {
+			if (segment.startsWith("_") || segment.startsWith(".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	record DataFile(String name, long size, Instant lastModified) {
+	}
+
+	record Staged(OutputFile outputFile, Runnable abort) {
+	}
+}
@@ -0,0 +1,161 @@
+package com.example.kafka.s3.sink.compaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.parquet.io.DelegatingSeekableInputStream;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+/**
+ * Parquet {@link InputFile} over an S3 object read with ranged GETs. The last {@value #TAIL_SIZE} bytes,
+ * which hold the footer, are fetched once and shared by every stream, since compaction reads each footer
+ * several times. Everything before them is streamed from the current position and reopened on seek, so
+ * row groups are copied without buffering the object.
+ */
+class S3InputFile implements InputFile {
+
+	static final int TAIL_SIZE = 64 * 1024;
+
+	private final S3Client s3Client;
+	private final String bucket;
+	private final String key;
+	private final long length;
+	private final long tailStart;
+	private byte[] tail;
+
+	S3InputFile(S3Client s3Client, String bucket, String key, long length) {
+		this.s3Client = s3Client;
+		this.bucket = bucket;
+		this.key = key;
+		this.length = length;
+		this.tailStart = Math.max(0, length - TAIL_SIZE);
+	}
+
+	@Override
+	public long getLength() {
+		return length;
+	}
+
+	@Override
+	public SeekableInputStream newStream() {
+		RangeStream in = new RangeStream();
+		return new DelegatingSeekableInputStream(in) {
+			@Override
+			public long getPos() {
+				return in.position;
+			}
+
+			@Override
+			public void seek(long newPos) {
+				in.seek(newPos);
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "s3://" + bucket + "/" + key;
+	}
+
+	private byte[] tail() throws IOException {
+		if (tail == null) {
+			try (InputStream in = get(tailStart, length - 1)) {
+				tail = in.readAllBytes();
+			}
+		}
+		return tail;
+	}
+
+	private ResponseInputStream<GetObjectResponse> get(long from, long to) throws IOException {
+		try {
+			return s3Client.getObject(GetObjectRequest.builder()
+					.bucket(bucket)
+					.key(key)
+					.range("bytes=" + from + "-" + to)
+					.build());
+		} catch (SdkException ex) {
+			throw new IOException("Failed to read " + this + " from byte " + from, ex);
+		}
+	}
+
+	private class RangeStream extends InputStream {
+
+		private InputStream current;
+		private long position;
+
+		@Override
+		public int read() throws IOException {
+			if (position >= length) {
+				return -1;
+			}
+			int b = current().read();
+			if (b >= 0) {
+				advance(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int count) throws IOException {
+			if (count == 0) {
+				return 0;
+			}
+			if (position >= length) {
+				return -1;
+			}
+			int read = current().read(bytes, offset, count);
+			if (read > 0) {
+				advance(read);
+			}
+			return read;
+		}
+
+		@Override
+		public void close() {
+			release();
+		}
+
+		private void seek(long newPos) {
+			if (newPos != position) {
+				release();
+				position = newPos;
+			}
+		}
+
+		private InputStream current() throws IOException {
+			if (current == null) {
+				if (position >= tailStart) {
+					byte[] bytes = tail();
+					int offset = Math.toIntExact(position - tailStart);
+					current = new ByteArrayInputStream(bytes, offset, bytes.length - offset);
+				} else {
+					// Stops at the tail, which is served from memory once the stream reaches it.
+					current = get(position, tailStart - 1);
+				}
+			}
+			return current;
+		}
+
+		private void advance(int count) {
+			position += count;
+			if (position == tailStart && !(current instanceof ByteArrayInputStream)) {
+				release();
+			}
+		}
+
+		private void release() {
+			if (current instanceof ResponseInputStream<?> response) {
+				response.abort();
+			}
+			current = null;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package com.example.kafka.s3.sink.compaction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.parquet.io.InputFile;
+
+import com.example.kafka.s3.sink.writer.S3MultipartOutputFile;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * S3 layout: staged outputs are written under {@code <partition>/_compaction/} and published with a
+ * server-side copy, since S3 has no rename. Every object write, including the manifest, is atomic.
+ */
+class S3PartitionStore implements PartitionStore {
+
+	private static final String STAGING = "_compaction/";
+	// DeleteObjects accepts at most 1000 keys per request.
+	private static final int DELETE_BATCH = 1000;
+
+	private final S3Client s3Client;
+	private final String bucket;
+	private final String prefix;
+	private final int partSize;
+	private final MeterRegistry meterRegistry;
+
+	S3PartitionStore(S3Client s3Client, String bucket, String prefix, int partSize, MeterRegistry meterRegistry) {
+		this.s3Client = s3Client;
+		this.bucket = bucket;
+		this.prefix = prefix;
+		this.partSize = partSize;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public String location() {
+		return "s3://" + bucket + "/" + prefix;
+	}
+
+	@Override
+	public String location(String partition, String name) {
+		return "s3://" + bucket + "/" + key(partition, name);
+	}
+
+	@Override
+	public String stagedLocation(String partition, String name) {
+		return "s3://" + bucket + "/" + staged(partition, name);
+	}
+
+	@Override
+	public List<String> partitions() throws IOException {
+		Set<String> partitions = new LinkedHashSet<>();
+		for (S3Object object : list(prefix)) {
+			String relative = object.key().substring(prefix.length());
+			int slash = relative.lastIndexOf('/');
+			if (slash <= 0) {
+				continue;
+			}
+			String name = relative.substring(slash + 1);
+			String partition = relative.substring(0, slash);
+			// Staged outputs live in <partition>/_compaction/, which must not look like a partition itself.
+			if (PartitionStore.isHidden(partition)) {
+				continue;
+			}
+			if (isDataFile(name) || name.equals(MANIFEST_NAME)) {
+				partitions.add(partition);
+			}
+		}
+		return List.copyOf(partitions);
+	}
+
+	@Override
+	public List<DataFile> dataFiles(String partition) throws IOException {
+		String partitionPrefix = prefix + partition + "/";
+		List<DataFile> files = new ArrayList<>();
+		for (S3Object object : list(partitionPrefix)) {
+			String name = object.key().substring(partitionPrefix.length());
+			if (!name.contains("/") && isDataFile(name)) {
+				files.add(new DataFile(name, object.size(), object.lastModified()));
+			}
+		}
+		return files;
+	}
+
+	@Override
+	public InputFile inputFile(String partition, DataFile file) {
+		return new S3InputFile(s3Client, bucket, key(partition, file.name()), file.size());
+	}
+
+	@Override
+	public Staged stage(String partition, String name) {
+		S3MultipartOutputFile outputFile = new S3MultipartOutputFile(s3Client, bucket, staged(partition, name),
+				partSize, meterRegistry);
+		return new Staged(outputFile, outputFile::abort);
+	}
+
+	@Override
+	public boolean isStaged(String partition, String name) throws IOException {
+		try {
+			s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(staged(partition, name)).build());
+			return true;
+		} catch (NoSuchKeyException ex) {
+			return false;
+		} catch (SdkException ex) {
+			throw new IOException("Failed to check staged file " + name, ex);
+		}
+	}
+
+	@Override
+	public void publish(String partition, String name) throws IOException {
+		try {
+			s3Client.copyObject(CopyObjectRequest.builder()
+					.sourceBucket(bucket)
+					.sourceKey(staged(partition, name))
+					.destinationBucket(bucket)
+					.destinationKey(key(partition, name))
+					.build());
+			s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(staged(partition, name)).build());
+		} catch (SdkException ex) {
+			throw new IOException("Failed to publish compacted file " + name, ex);
+		}
+	}
+
+	@Override
+	public void discardStaged(String partition) throws IOException {
+		List<String> keys = list(prefix + partition + "/" + STAGING).stream().map(S3Object::key).toList();
+		deleteKeys(keys);
+	}
+
+	@Override
+	public void delete(String partition, List<String> names) throws IOException {
+		deleteKeys(names.stream().map(name -> key(partition, name)).toList());
+	}
+
+	@Override
+	public Optional<CompactionManifest> readManifest(String partition) throws IOException {
+		try {
+			return Optional.of(CompactionManifest.parse(s3Client.getObjectAsBytes(GetObjectRequest.builder()
+					.bucket(bucket)
+					.key(key(partition, MANIFEST_NAME))
+					.build()).asByteArray()));
+		} catch (NoSuchKeyException ex) {
+			return Optional.empty();
+		} catch (SdkException ex) {
+			throw new IOException("Failed to read compaction manifest for " + partition, ex);
+		}
+	}
+
+	@Override
+	public void writeManifest(String partition, CompactionManifest manifest) throws IOException {
+		try {
+			s3Client.putObject(PutObjectRequest.builder()
+					.bucket(bucket)
+					.key(key(partition, MANIFEST_NAME))
+					.build(), RequestBody.fromBytes(manifest.toBytes()));
+		} catch (SdkException ex) {
+			throw new IOException("Failed to write compaction manifest for " + partition, ex);
+		}
+	}
+
+	private List<S3Object> list(String keyPrefix) throws IOException {
+		try {
+			List<S3Object> objects = new ArrayList<>();
+			s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+					.bucket(bucket)
+					.prefix(keyPrefix)
+					.build()).contents().forEach(objects::add);
+			return objects;
+		} catch (SdkException ex) {
+			throw new IOException("Failed to list s3://" + bucket + "/" + keyPrefix, ex);
+		}
+	}
+
+	private void deleteKeys(List<String> keys) throws IOException {
+		try {
+			for (int from = 0; from < keys.size(); from += DELETE_BATCH) {
+				List<ObjectIdentifier> batch = keys.subList(from, Math.min(from + DELETE_BATCH, keys.size())).stream()
+						.map(key -> ObjectIdentifier.builder().key(key).build())
+						.toList();
+				DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+						.bucket(bucket)
+						.delete(Delete.builder().objects(batch).build())
+						.build());
+				// DeleteObjects reports per-key failures in a successful response rather than throwing.
+				if (response.hasErrors() && !response.errors().isEmpty()) {
+					S3Error error = response.errors().getFirst();
+					throw new IOException("Failed to delete " + response.errors().size() + " objects under "
+							+ location() + ", first " + error.key() + ": " + error.code() + " " + error.message());
+				}
+			}
+		} catch (SdkException ex) {
+			throw new IOException("Failed to delete objects under " + location(), ex);
+		}
+	}
+
+	private String key(String partition, String name) {
+		return prefix + partition + "/" + name;
+	}
+
+	private String staged(String partition, String name) {
+		return prefix + partition + "/" + STAGING + name;
+	}
+
+	private static boolean isDataFile(String name) {
+		return name.endsWith(".parquet") && !name.startsWith(".") && !name.startsWith("_");
+	}
+}
@@ -3,20 +3,29 @@ package com.example.kafka.s3.sink.config;
 import java.net.URI;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @ConfigurationProperties(prefix = "app")
 public class AppProperties {
 
 	private String sourceTopics = "";
+	private boolean sourceTopicsIsPattern = false;
 	private String dlqTopic = "kafka-s3-sink-dlq";
 	private List<TopicMapping> mappings = new ArrayList<>();
 	private LocalProperties local = new LocalProperties();
 	private S3Properties s3 = new S3Properties();
 	private BatchProperties batch = new BatchProperties();
+	private UploadProperties upload = new UploadProperties();
+	private DecodeProperties decode = new DecodeProperties();
+	private AvroProperties avro = new AvroProperties();
+	private CompactionProperties compaction = new CompactionProperties();
+	private MemoryProperties memory = new MemoryProperties();
 
 	public String getSourceTopics() {
 		return sourceTopics;
@@ -26,6 +35,14 @@ public class AppProperties {
 		this.sourceTopics = sourceTopics;
 	}
 
+	public boolean isSourceTopicsIsPattern() {
+		return sourceTopicsIsPattern;
+	}
+
+	public void setSourceTopicsIsPattern(boolean sourceTopicsIsPattern) {
+		this.sourceTopicsIsPattern = sourceTopicsIsPattern;
+	}
+
 	public String getDlqTopic() {
 		return dlqTopic;
 	}
@@ -66,12 +83,55 @@ public class AppProperties {
 		this.batch = batch;
 	}
 
+	public UploadProperties getUpload() {
+		return upload;
+	}
+
+	public void setUpload(UploadProperties upload) {
+		this.upload = upload;
+	}
+
+	public DecodeProperties getDecode() {
+		return decode;
+	}
+
+	public void setDecode(DecodeProperties decode) {
+		this.decode = decode;
+	}
+
+	public AvroProperties getAvro() {
+		return avro;
+	}
+
+	public void setAvro(AvroProperties avro) {
+		this.avro = avro;
+	}
+
+	public CompactionProperties getCompaction() {
+		return compaction;
+	}
+
+	public void setCompaction(CompactionProperties compaction) {
+		this.compaction = compaction;
+	}
+
+	public MemoryProperties getMemory() {
+		return memory;
+	}
+
+	public void setMemory(MemoryProperties memory) {
+		this.memory = memory;
+	}
+
 	public static class TopicMapping {
 		private String topic;
+		private String topicPattern;
 		private TargetType destination = TargetType.LOCAL;
 		private String directory;
 		private String bucket;
 		private String prefix;
+		private ParquetProperties parquet = new ParquetProperties();
+		private PartitioningProperties partitioning = new PartitioningProperties();
 
 		public String getTopic() {
 			return topic;
@@ -81,6 +141,14 @@ public class AppProperties {
 			this.topic = topic;
 		}
 
+		public String getTopicPattern() {
+			return topicPattern;
+		}
+
+		public void setTopicPattern(String topicPattern) {
+			this.topicPattern = topicPattern;
+		}
+
 		public TargetType getDestination() {
 			return destination;
 		}
@@ -112,6 +180,109 @@ public class AppProperties {
 		public void setPrefix(String prefix) {
 			this.prefix = prefix;
 		}
+
+		public ParquetProperties getParquet() {
+			return parquet;
+		}
+
+		public void setParquet(ParquetProperties parquet) {
+			this.parquet = parquet;
+		}
+
+		public PartitioningProperties getPartitioning() {
+			return partitioning;
+		}
+
+		public void setPartitioning(PartitioningProperties partitioning) {
+			this.partitioning = partitioning;
+		}
+	}
+
+	public static class PartitioningProperties {
+		private String field;
+		private PartitionGranularity granularity = PartitionGranularity.DAY;
+		private ZoneId zone;
+
+		public String getField() {
+			return field;
+		}
+
+		public void setField(String field) {
+			this.field = field;
+		}
+
+		public PartitionGranularity getGranularity() {
+			return granularity;
+		}
+
+		public void setGranularity(PartitionGranularity granularity) {
+			this.granularity = granularity;
+		}
+
+		public ZoneId getZone() {
+			return zone;
+		}
+
+		public void setZone(ZoneId zone) {
+			this.zone = zone;
+		}
+	}
+
+	public static class ParquetProperties {
+		private CompressionCodecName codec = CompressionCodecName.SNAPPY;
+		private Integer compressionLevel;
+		private DataSize rowGroupSize;
+		private DataSize pageSize;
+		private boolean dictionary = true;
+		private List<String> bloomFilterColumns = new ArrayList<>();
+
+		public CompressionCodecName getCodec() {
+			return codec;
+		}
+
+		public void setCodec(CompressionCodecName codec) {
+			this.codec = codec;
+		}
+
+		public Integer getCompressionLevel() {
+			return compressionLevel;
+		}
+
+		public void setCompressionLevel(Integer compressionLevel) {
+			this.compressionLevel = compressionLevel;
+		}
+
+		public DataSize getRowGroupSize() {
+			return rowGroupSize;
+		}
+
+		public void setRowGroupSize(DataSize rowGroupSize) {
+			this.rowGroupSize = rowGroupSize;
+		}
+
+		public DataSize getPageSize() {
+			return pageSize;
+		}
+
+		public void setPageSize(DataSize pageSize) {
+			this.pageSize = pageSize;
+		}
+
+		public boolean isDictionary() {
+			return dictionary;
+		}
+
+		public void setDictionary(boolean dictionary) {
+			this.dictionary = dictionary;
+		}
+
+		public List<String> getBloomFilterColumns() {
+			return bloomFilterColumns;
+		}
+
+		public void setBloomFilterColumns(List<String> bloomFilterColumns) {
+			this.bloomFilterColumns = bloomFilterColumns;
+		}
 	}
 
 	public static class LocalProperties {
@@ -134,6 +305,7 @@ public class AppProperties {
 		private boolean pathStyle = false;
 		private String accessKeyId;
 		private String secretAccessKey;
+		private DataSize partSize = DataSize.ofMegabytes(8);
 
 		public String getRegion() {
 			return region;
@@ -190,11 +362,33 @@ public class AppProperties {
 		public void setSecretAccessKey(String secretAccessKey) {
 			this.secretAccessKey = secretAccessKey;
 		}
+
+		public DataSize getPartSize() {
+			return partSize;
+		}
+
+		public void setPartSize(DataSize partSize) {
+			this.partSize = partSize;
+		}
 	}
 
 	public static class BatchProperties {
+		private BatchMode mode = BatchMode.BUFFERED;
 		private int maxRecords = 1;
 		private Duration flushInterval = Duration.ZERO;
+		private DataSize maxBytes;
+		private DataSize targetFileSize;
+		private DataSize spillThreshold;
+		private int flushConcurrency = 1;
+		private Path spillDirectory = Path.of(System.getProperty("java.io.tmpdir"), "kafka-s3-sink-spill");
+
+		public BatchMode getMode() {
+			return mode;
+		}
+
+		public void setMode(BatchMode mode) {
+			this.mode = mode;
+		}
 
 		public int getMaxRecords() {
 			return maxRecords;
@@ -211,5 +405,213 @@ public class AppProperties {
 		public void setFlushInterval(Duration flushInterval) {
 			this.flushInterval = flushInterval;
 		}
+
+		public DataSize getMaxBytes() {
+			return maxBytes;
+		}
+
+		public void setMaxBytes(DataSize maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		public DataSize getTargetFileSize() {
+			return targetFileSize;
+		}
+
+		public void setTargetFileSize(DataSize targetFileSize) {
+			this.targetFileSize = targetFileSize;
+		}
+
+		public int getFlushConcurrency() {
+			return flushConcurrency;
+		}
+
+		public void setFlushConcurrency(int flushConcurrency) {
+			this.flushConcurrency = flushConcurrency;
+		}
+
+		public DataSize getSpillThreshold() {
+			return spillThreshold;
+		}
+
+		public void setSpillThreshold(DataSize spillThreshold) {
+			this.spillThreshold = spillThreshold;
+		}
+
+		public Path getSpillDirectory() {
+			return spillDirectory;
+		}
+
+		public void setSpillDirectory(Path spillDirectory) {
+			this.spillDirectory = spillDirectory;
+		}
+	}
+
+	public static class UploadProperties {
+		private int concurrency = 0;
+		private int queueCapacity = 16;
+		private Duration shutdownTimeout = Duration.ofSeconds(30);
+		private int maxAttempts = 5;
+		private Duration retryBackoff = Duration.ofSeconds(1);
+		private Duration retryMaxBackoff = Duration.ofSeconds(30);
+
+		public int getConcurrency() {
+			return concurrency;
+		}
+
+		public void setConcurrency(int concurrency) {
+			this.concurrency = concurrency;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public Duration getShutdownTimeout() {
+			return shutdownTimeout;
+		}
+
+		public void setShutdownTimeout(Duration shutdownTimeout) {
+			this.shutdownTimeout = shutdownTimeout;
+		}
+
+		public int getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		public Duration getRetryBackoff() {
+			return retryBackoff;
+		}
+
+		public void setRetryBackoff(Duration retryBackoff) {
+			this.retryBackoff = retryBackoff;
+		}
+
+		public Duration getRetryMaxBackoff() {
+			return retryMaxBackoff;
+		}
+
+		public void setRetryMaxBackoff(Duration retryMaxBackoff) {
+			this.retryMaxBackoff = retryMaxBackoff;
+		}
+	}
+
+	public static class DecodeProperties {
+		private int concurrency = 0;
+		private boolean virtualThreads = false;
+
+		public int getConcurrency() {
+			return concurrency;
+		}
+
+		public void setConcurrency(int concurrency) {
+			this.concurrency = concurrency;
+		}
+
+		public boolean isVirtualThreads() {
+			return virtualThreads;
+		}
+
+		public void setVirtualThreads(boolean virtualThreads) {
+			this.virtualThreads = virtualThreads;
+		}
+	}
+
+	public static class AvroProperties {
+		private List<String> schemaLocations = new ArrayList<>();
+
+		public List<String> getSchemaLocations() {
+			return schemaLocations;
+		}
+
+		public void setSchemaLocations(List<String> schemaLocations) {
+			this.schemaLocations = schemaLocations;
+		}
+	}
+
+	public static class CompactionProperties {
+		private boolean enabled = false;
+		private Duration interval = Duration.ofMinutes(15);
+		private Duration minAge = Duration.ofHours(1);
+		private int minFiles = 10;
+		private DataSize smallFileSize = DataSize.ofMegabytes(16);
+		private DataSize targetFileSize = DataSize.ofMegabytes(128);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getInterval() {
+			return interval;
+		}
+
+		public void setInterval(Duration interval) {
+			this.interval = interval;
+		}
+
+		public Duration getMinAge() {
+			return minAge;
+		}
+
+		public void setMinAge(Duration minAge) {
+			this.minAge = minAge;
+		}
+
+		public int getMinFiles() {
+			return minFiles;
+		}
+
+		public void setMinFiles(int minFiles) {
+			this.minFiles = minFiles;
+		}
+
+		public DataSize getSmallFileSize() {
+			return smallFileSize;
+		}
+
+		public void setSmallFileSize(DataSize smallFileSize) {
+			this.smallFileSize = smallFileSize;
+		}
+
+		public DataSize getTargetFileSize() {
+			return targetFileSize;
+		}
+
+		public void setTargetFileSize(DataSize targetFileSize) {
+			this.targetFileSize = targetFileSize;
+		}
+	}
+
+	public static class MemoryProperties {
+		private DataSize budget;
+		private double resumeRatio = 0.75;
+
+		public DataSize getBudget() {
+			return budget;
+		}
+
+		public void setBudget(DataSize budget) {
+			this.budget = budget;
+		}
+
+		public double getResumeRatio() {
+			return resumeRatio;
+		}
+
+		public void setResumeRatio(double resumeRatio) {
+			this.resumeRatio = resumeRatio;
+		}
 	}
 }
@@ -0,0 +1,6 @@
+package com.example.kafka.s3.sink.config;
+
+public enum BatchMode {
+	BUFFERED,
+	STREAMING
+}
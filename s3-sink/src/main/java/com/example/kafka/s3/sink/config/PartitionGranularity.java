@@ -0,0 +1,7 @@
+package com.example.kafka.s3.sink.config;
+
+public enum PartitionGranularity {
+	DAY,
+	HOUR,
+	MINUTE
+}
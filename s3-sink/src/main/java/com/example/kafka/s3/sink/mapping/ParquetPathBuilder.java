@@ -2,8 +2,8 @@ package com.example.kafka.s3.sink.mapping;
 
 import java.nio.file.Path;
 import java.time.Clock;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.UUID;
 
 import org.springframework.stereotype.Component;
@@ -11,29 +11,69 @@ import org.springframework.stereotype.Component;
 @Component
 public class ParquetPathBuilder {
 
-	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_DATE;
 	private final Clock clock;
 
 	public ParquetPathBuilder(Clock clock) {
 		this.clock = clock;
 	}
 
+	public String partitionPath(Instant recordTime) {
+		return PartitionSpec.daily(clock.getZone()).path(recordTime);
+	}
+
+	/**
+	 * Zone used for partition values when a mapping does not configure one.
+	 */
+	public ZoneId defaultZone() {
+		return clock.getZone();
+	}
+
+	public String currentPartitionPath() {
+		return partitionPath(clock.instant());
+	}
+
 	public Path buildLocalPath(Path baseDir, String directory, String topic) {
-		String date = LocalDate.now(clock).format(DATE_FORMAT);
-		Path prefixPath = resolvePrefix(baseDir, directory);
-		return prefixPath
-				.resolve("topic=" + topic)
-				.resolve("date=" + date)
-				.resolve(UUID.randomUUID() + ".parquet");
+		return buildLocalPath(baseDir, directory, topic, currentPartitionPath());
+	}
+
+	public Path buildLocalPath(Path baseDir, String directory, String topic, String partitionPath) {
+		return fileInPartition(localTopicRoot(baseDir, directory, topic), partitionPath);
+	}
+
+	/**
+	 * New file name under a topic root from {@link #localTopicRoot}.
+	 */
+	public Path fileInPartition(Path topicRoot, String partitionPath) {
+		return topicRoot.resolve(partitionPath).resolve(UUID.randomUUID() + ".parquet");
+	}
+
+	/**
+	 * Directory holding every output partition of a topic, e.g. {@code <baseDir>/<directory>/topic=events}.
+	 */
+	public Path localTopicRoot(Path baseDir, String directory, String topic) {
+		return resolvePrefix(baseDir, directory).resolve("topic=" + topic);
 	}
 
 	public String buildS3Key(String prefix, String topic) {
-		String date = LocalDate.now(clock).format(DATE_FORMAT);
-		String normalizedPrefix = normalizePrefix(prefix);
-		return normalizedPrefix
-				+ "topic=" + topic + "/"
-				+ "date=" + date + "/"
-				+ UUID.randomUUID() + ".parquet";
+		return buildS3Key(prefix, topic, currentPartitionPath());
+	}
+
+	public String buildS3Key(String prefix, String topic, String partitionPath) {
+		return keyInPartition(s3TopicPrefix(prefix, topic), partitionPath);
+	}
+
+	/**
+	 * New object key under a topic prefix from {@link #s3TopicPrefix}.
+	 */
+	public String keyInPartition(String topicPrefix, String partitionPath) {
+		return topicPrefix + partitionPath + "/" + UUID.randomUUID() + ".parquet";
+	}
+
+	/**
+	 * Key prefix holding every output partition of a topic, e.g. {@code <prefix>/topic=events/}.
+	 */
+	public String s3TopicPrefix(String prefix, String topic) {
+		return normalizePrefix(prefix) + "topic=" + topic + "/";
 	}
 
 	private Path resolvePrefix(Path baseDir, String directory) {
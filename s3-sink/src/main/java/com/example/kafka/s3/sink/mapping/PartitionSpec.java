@@ -0,0 +1,102 @@
+package com.example.kafka.s3.sink.mapping;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+import org.apache.avro.LogicalType;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import com.example.kafka.s3.sink.config.PartitionGranularity;
+
+/**
+ * How a topic's records are split into output partitions. With a {@code field}, each record is placed by
+ * the event time in that top-level field; otherwise, and for records where the field is missing or
+ * unreadable, by the Kafka record timestamp.
+ */
+public record PartitionSpec(String field, PartitionGranularity granularity, ZoneId zone) {
+
+	public static PartitionSpec daily(ZoneId zone) {
+		return new PartitionSpec(null, PartitionGranularity.DAY, zone);
+	}
+
+	public boolean byField() {
+		return field != null;
+	}
+
+	public String path(GenericRecord record, Instant fallback) {
+		return path(eventTime(record, fallback));
+	}
+
+	/**
+	 * Formats Hive-style partition directories, e.g. {@code date=2024-01-01/hour=09} for hourly
+	 * partitions.
+	 */
+	public String path(Instant time) {
+		LocalDateTime local = LocalDateTime.ofInstant(time, zone);
+		StringBuilder path = new StringBuilder(32).append("date=").append(local.toLocalDate());
+		if (granularity != PartitionGranularity.DAY) {
+			appendTwoDigits(path.append("/hour="), local.getHour());
+		}
+		if (granularity == PartitionGranularity.MINUTE) {
+			appendTwoDigits(path.append("/minute="), local.getMinute());
+		}
+		return path.toString();
+	}
+
+	Instant eventTime(GenericRecord record, Instant fallback) {
+		Schema.Field schemaField = record.getSchema().getField(field);
+		if (schemaField == null) {
+			return fallback;
+		}
+		Object value = record.get(schemaField.pos());
+		if (value instanceof Instant instant) {
+			return instant;
+		}
+		if (value instanceof Long number) {
+			return isMicros(schemaField.schema())
+					? Instant.EPOCH.plus(number, ChronoUnit.MICROS)
+					: Instant.ofEpochMilli(number);
+		}
+		if (value instanceof CharSequence text) {
+			return parse(text.toString(), fallback);
+		}
+		return fallback;
+	}
+
+	private static boolean isMicros(Schema schema) {
+		LogicalType logicalType = schema.getLogicalType();
+		if (logicalType == null && schema.getType() == Schema.Type.UNION) {
+			for (Schema branch : schema.getTypes()) {
+				if (branch.getType() == Schema.Type.LONG) {
+					logicalType = branch.getLogicalType();
+				}
+			}
+		}
+		return logicalType instanceof LogicalTypes.TimestampMicros
+				|| logicalType instanceof LogicalTypes.LocalTimestampMicros;
+	}
+
+	private static Instant parse(String text, Instant fallback) {
+		try {
+			return Instant.ofEpochMilli(Long.parseLong(text));
+		} catch (NumberFormatException ignored) {
+		}
+		try {
+			return Instant.parse(text);
+		} catch (DateTimeParseException ignored) {
+			return fallback;
+		}
+	}
+
+	private static void appendTwoDigits(StringBuilder path, int value) {
+		if (value < 10) {
+			path.append('0');
+		}
+		path.append(value);
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.kafka.s3.sink.mapping;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+
+/**
+ * Immutable lookup of topic mappings, built once from {@code app.mappings}. A mapping's {@code topic} is
+ * either an exact name or a prefix ending in {@code *} (e.g. {@code orders-*}); {@code topicPattern} is a
+ * regular expression matched against the whole topic name. The most specific match wins: an exact
+ * name, then the longest prefix, then the first matching pattern in declaration order.
+ */
+final class TopicMappingIndex {
+
+	private static final String WILDCARD = "*";
+
+	private final Map<String, AppProperties.TopicMapping> exact;
+	private final List<PrefixMapping> prefixes;
+	private final List<PatternMapping> patterns;
+
+	TopicMappingIndex(List<AppProperties.TopicMapping> mappings) {
+		Map<String, AppProperties.TopicMapping> exactMappings = new HashMap<>();
+		List<PrefixMapping> prefixMappings = new ArrayList<>();
+		List<PatternMapping> patternMappings = new ArrayList<>();
+		for (AppProperties.TopicMapping mapping : mappings) {
+			String topic = mapping.getTopic();
+			if (mapping.getTopicPattern() != null && !mapping.getTopicPattern().isBlank()) {
+				patternMappings.add(new PatternMapping(Pattern.compile(mapping.getTopicPattern()), mapping));
+			} else if (topic != null && topic.endsWith(WILDCARD)) {
+				prefixMappings.add(new PrefixMapping(topic.substring(0, topic.length() - 1), mapping));
+			} else if (topic != null) {
+				exactMappings.putIfAbsent(topic, mapping);
+			}
+		}
+		prefixMappings.sort(Comparator.comparingInt((PrefixMapping entry) -> entry.prefix().length()).reversed());
+		this.exact = Map.copyOf(exactMappings);
+		this.prefixes = List.copyOf(prefixMappings);
+		this.patterns = List.copyOf(patternMappings);
+	}
+
+	Optional<AppProperties.TopicMapping> find(String topic) {
+		AppProperties.TopicMapping mapping = exact.get(topic);
+		if (mapping != null) {
+			return Optional.of(mapping);
+		}
+		for (PrefixMapping entry : prefixes) {
+			if (topic.startsWith(entry.prefix())) {
+				return Optional.of(entry.mapping());
+			}
+		}
+		for (PatternMapping entry : patterns) {
+			if (entry.pattern().matcher(topic).matches()) {
+				return Optional.of(entry.mapping());
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Topics named exactly in the configuration; topics matched by prefix or pattern are only known once
+	 * they have been resolved.
+	 */
+	List<String> exactTopics() {
+		return List.copyOf(exact.keySet());
+	}
+
+	private record PrefixMapping(String prefix, AppProperties.TopicMapping mapping) {
+	}
+
+	private record PatternMapping(Pattern pattern, AppProperties.TopicMapping mapping) {
+	}
+}
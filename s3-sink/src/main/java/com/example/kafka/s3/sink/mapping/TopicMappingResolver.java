@@ -1,41 +1,147 @@
 package com.example.kafka.s3.sink.mapping;
 
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.stereotype.Component;
 
 import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.config.PartitionGranularity;
 import com.example.kafka.s3.sink.config.TargetType;
 import com.example.kafka.s3.sink.writer.WriteTarget;
 
+/**
+ * Maps topics to output locations. Mappings are indexed once at construction and each topic's route is
+ * cached on first use, so resolving a flush target does not scan the mappings.
+ */
 @Component
 public class TopicMappingResolver {
 
 	private final AppProperties properties;
 	private final ParquetPathBuilder pathBuilder;
+	private final TopicMappingIndex index;
+	private final Map<String, Optional<TopicRoute>> routes = new ConcurrentHashMap<>();
 
 	public TopicMappingResolver(AppProperties properties, ParquetPathBuilder pathBuilder) {
 		this.properties = properties;
 		this.pathBuilder = pathBuilder;
+		this.index = new TopicMappingIndex(properties.getMappings());
+	}
+
+	public String partitionPath(String topic, Instant recordTime) {
+		return partitionSpec(topic).path(recordTime);
+	}
+
+	/**
+	 * Returns the topic's partitioning. Topics without a mapping, or whose mapping configures none, are
+	 * partitioned daily by record timestamp in the sink clock's zone.
+	 */
+	public PartitionSpec partitionSpec(String topic) {
+		return route(topic).map(TopicRoute::spec).orElseGet(() -> PartitionSpec.daily(pathBuilder.defaultZone()));
+	}
+
+	/**
+	 * Fails with {@link IllegalArgumentException} unless the topic has a mapping with a usable destination,
+	 * so records can be rejected on receipt instead of failing once they are buffered.
+	 */
+	public void requireMapping(String topic) {
+		TopicRoute route = requireRoute(topic);
+		if (route.destination() == TargetType.S3) {
+			requireBucket(route, topic);
+		}
 	}
 
 	public WriteTarget resolve(String topic) {
-		AppProperties.TopicMapping mapping = properties.getMappings().stream()
-				.filter(entry -> entry.getTopic() != null && entry.getTopic().equals(topic))
-				.findFirst()
+		return resolve(topic, pathBuilder.currentPartitionPath());
+	}
+
+	public WriteTarget resolve(String topic, String partitionPath) {
+		TopicRoute route = requireRoute(topic);
+		if (route.destination() == TargetType.LOCAL) {
+			return WriteTarget.local(pathBuilder.fileInPartition(route.localRoot(), partitionPath),
+					route.mapping().getParquet());
+		}
+		return WriteTarget.s3(requireBucket(route, topic), pathBuilder.keyInPartition(route.s3Prefix(), partitionPath),
+				route.mapping().getParquet());
+	}
+
+	/**
+	 * Resolves the location that holds all output partitions of a topic: the {@code topic=} directory for
+	 * local targets, or the {@code topic=} key prefix (ending in {@code /}) for S3 targets.
+	 */
+	public WriteTarget resolveTopicRoot(String topic) {
+		TopicRoute route = requireRoute(topic);
+		if (route.destination() == TargetType.LOCAL) {
+			return WriteTarget.local(route.localRoot(), route.mapping().getParquet());
+		}
+		return WriteTarget.s3(requireBucket(route, topic), route.s3Prefix(), route.mapping().getParquet());
+	}
+
+	/**
+	 * Topics with a mapping that this resolver knows of: every exact mapping plus the wildcard and pattern
+	 * matches resolved since startup.
+	 */
+	public List<String> knownTopics() {
+		Set<String> topics = new LinkedHashSet<>(index.exactTopics());
+		routes.forEach((topic, route) -> {
+			if (route.isPresent()) {
+				topics.add(topic);
+			}
+		});
+		return List.copyOf(topics);
+	}
+
+	private Optional<TopicRoute> route(String topic) {
+		Optional<TopicRoute> route = routes.get(topic);
+		if (route == null) {
+			route = routes.computeIfAbsent(topic, ignored -> index.find(topic).map(mapping -> newRoute(topic, mapping)));
+		}
+		return route;
+	}
+
+	private TopicRoute requireRoute(String topic) {
+		return route(topic)
 				.orElseThrow(() -> new IllegalArgumentException("No mapping configured for topic: " + topic));
+	}
 
+	private TopicRoute newRoute(String topic, AppProperties.TopicMapping mapping) {
 		TargetType destination = Optional.ofNullable(mapping.getDestination()).orElse(TargetType.LOCAL);
+		PartitionSpec spec = specFor(mapping.getPartitioning());
 		if (destination == TargetType.LOCAL) {
-			return WriteTarget.local(pathBuilder.buildLocalPath(
-					properties.getLocal().getBaseDir(), mapping.getDirectory(), topic));
+			return new TopicRoute(mapping, destination, spec, pathBuilder.localTopicRoot(
+					properties.getLocal().getBaseDir(), mapping.getDirectory(), topic), null, null);
 		}
-
 		String bucket = mapping.getBucket() != null ? mapping.getBucket() : properties.getS3().getBucket();
-		if (bucket == null || bucket.isBlank()) {
+		String prefix = mapping.getPrefix() != null ? mapping.getPrefix() : properties.getS3().getPrefix();
+		return new TopicRoute(mapping, destination, spec, null, bucket, pathBuilder.s3TopicPrefix(prefix, topic));
+	}
+
+	private PartitionSpec specFor(AppProperties.PartitioningProperties partitioning) {
+		if (partitioning == null) {
+			return PartitionSpec.daily(pathBuilder.defaultZone());
+		}
+		String field = partitioning.getField() != null && !partitioning.getField().isBlank()
+				? partitioning.getField()
+				: null;
+		return new PartitionSpec(field,
+				Optional.ofNullable(partitioning.getGranularity()).orElse(PartitionGranularity.DAY),
+				Optional.ofNullable(partitioning.getZone()).orElse(pathBuilder.defaultZone()));
+	}
+
+	private static String requireBucket(TopicRoute route, String topic) {
+		if (route.bucket() == null || route.bucket().isBlank()) {
 			throw new IllegalArgumentException("No S3 bucket configured for topic: " + topic);
 		}
-		String prefix = mapping.getPrefix() != null ? mapping.getPrefix() : properties.getS3().getPrefix();
-		return WriteTarget.s3(bucket, pathBuilder.buildS3Key(prefix, topic));
+		return route.bucket();
+	}
+
+	private record TopicRoute(AppProperties.TopicMapping mapping, TargetType destination, PartitionSpec spec,
+			Path localRoot, String bucket, String s3Prefix) {
 	}
 }
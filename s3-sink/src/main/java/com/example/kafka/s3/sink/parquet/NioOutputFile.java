@@ -0,0 +1,142 @@
+package com.example.kafka.s3.sink.parquet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+/**
+ * Parquet {@link OutputFile} backed by a NIO {@link FileChannel}. Local files are written without a
+ * Hadoop {@code FileSystem}, so there is no per-file filesystem lookup and no {@code .crc} side file.
+ */
+public class NioOutputFile implements OutputFile {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path path;
+	private ChannelOutputStream stream;
+
+	public NioOutputFile(Path path) {
+		this.path = path;
+	}
+
+	@Override
+	public PositionOutputStream create(long blockSizeHint) throws IOException {
+		return open(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+	}
+
+	@Override
+	public PositionOutputStream createOrOverwrite(long blockSizeHint) throws IOException {
+		return open(StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	@Override
+	public boolean supportsBlockSize() {
+		return false;
+	}
+
+	@Override
+	public long defaultBlockSize() {
+		return 0;
+	}
+
+	@Override
+	public String getPath() {
+		return path.toString();
+	}
+
+	/**
+	 * Closes the file if it is still open and deletes it, for writes that fail before the Parquet writer
+	 * closes its stream.
+	 */
+	public void abort() {
+		try {
+			if (stream != null) {
+				stream.channel.close();
+			}
+			Files.deleteIfExists(path);
+		} catch (IOException ignored) {
+		}
+	}
+
+	private PositionOutputStream open(OpenOption... options) throws IOException {
+		stream = new ChannelOutputStream(FileChannel.open(path, options));
+		return stream;
+	}
+
+	private static class ChannelOutputStream extends PositionOutputStream {
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private long position;
+		private boolean closed;
+
+		private ChannelOutputStream(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public long getPos() {
+			return position;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (!buffer.hasRemaining()) {
+				flushBuffer();
+			}
+			buffer.put((byte) b);
+			position++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (length > buffer.remaining()) {
+				flushBuffer();
+			}
+			// Page-sized writes bypass the buffer rather than being copied through it.
+			if (length >= buffer.capacity()) {
+				writeFully(ByteBuffer.wrap(bytes, offset, length));
+			} else {
+				buffer.put(bytes, offset, length);
+			}
+			position += length;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushBuffer();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				flushBuffer();
+			} finally {
+				channel.close();
+			}
+		}
+
+		private void flushBuffer() throws IOException {
+			buffer.flip();
+			writeFully(buffer);
+			buffer.clear();
+		}
+
+		private void writeFully(ByteBuffer source) throws IOException {
+			while (source.hasRemaining()) {
+				channel.write(source);
+			}
+		}
+	}
+}
@@ -1,34 +1,99 @@
 package com.example.kafka.s3.sink.parquet;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.codec.ZstandardCodec;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
 import org.apache.parquet.avro.AvroParquetWriter;
 import org.springframework.stereotype.Component;
 
 import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
 
 @Component
 public class ParquetConverter {
 
+	private static final AppProperties.ParquetProperties DEFAULT_OPTIONS = new AppProperties.ParquetProperties();
+
 	private final Configuration hadoopConfiguration;
+	// Codec levels are read from the Hadoop configuration, so each level gets its own copy.
+	private final Map<Integer, Configuration> zstdConfigurations = new ConcurrentHashMap<>();
 
 	public ParquetConverter(Configuration hadoopConfiguration) {
 		this.hadoopConfiguration = hadoopConfiguration;
 	}
 
 	public void write(DecodedAvro decoded, java.nio.file.Path outputPath) throws IOException {
-		org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(outputPath.toUri());
-		try (ParquetWriter<GenericRecord> writer = AvroParquetWriter.<GenericRecord>builder(hadoopPath)
-				.withSchema(decoded.schema())
-				.withConf(hadoopConfiguration)
-				.withCompressionCodec(CompressionCodecName.SNAPPY)
-				.build()) {
-			for (GenericRecord record : decoded.records()) {
+		write(decoded, outputPath, DEFAULT_OPTIONS);
+	}
+
+	public void write(DecodedAvro decoded, java.nio.file.Path outputPath, AppProperties.ParquetProperties options)
+			throws IOException {
+		write(decoded.schema(), decoded.records(), outputPath, options);
+	}
+
+	public void write(Schema schema, Iterable<GenericRecord> records, java.nio.file.Path outputPath,
+			AppProperties.ParquetProperties options) throws IOException {
+		try (ParquetWriter<GenericRecord> writer = open(schema, outputPath, options)) {
+			for (GenericRecord record : records) {
 				writer.write(record);
 			}
 		}
 	}
+
+	public ParquetWriter<GenericRecord> open(Schema schema, java.nio.file.Path outputPath) throws IOException {
+		return open(schema, outputPath, DEFAULT_OPTIONS);
+	}
+
+	public ParquetWriter<GenericRecord> open(Schema schema, java.nio.file.Path outputPath,
+			AppProperties.ParquetProperties options) throws IOException {
+		return open(schema, new NioOutputFile(outputPath), options);
+	}
+
+	public ParquetWriter<GenericRecord> open(Schema schema, OutputFile outputFile) throws IOException {
+		return open(schema, outputFile, DEFAULT_OPTIONS);
+	}
+
+	public ParquetWriter<GenericRecord> open(Schema schema, OutputFile outputFile,
+			AppProperties.ParquetProperties options) throws IOException {
+		return configure(AvroParquetWriter.<GenericRecord>builder(outputFile), schema, options).build();
+	}
+
+	private AvroParquetWriter.Builder<GenericRecord> configure(AvroParquetWriter.Builder<GenericRecord> builder,
+			Schema schema, AppProperties.ParquetProperties options) {
+		AppProperties.ParquetProperties resolved = options != null ? options : DEFAULT_OPTIONS;
+		CompressionCodecName codec = resolved.getCodec() != null ? resolved.getCodec() : CompressionCodecName.SNAPPY;
+		builder.withSchema(schema)
+				.withConf(configurationFor(codec, resolved.getCompressionLevel()))
+				.withCompressionCodec(codec)
+				.withDictionaryEncoding(resolved.isDictionary());
+		if (resolved.getRowGroupSize() != null) {
+			builder.withRowGroupSize(resolved.getRowGroupSize().toBytes());
+		}
+		if (resolved.getPageSize() != null) {
+			builder.withPageSize(Math.toIntExact(resolved.getPageSize().toBytes()));
+		}
+		for (String column : resolved.getBloomFilterColumns()) {
+			builder.withBloomFilterEnabled(column, true);
+		}
+		return builder;
+	}
+
+	private Configuration configurationFor(CompressionCodecName codec, Integer level) {
+		if (codec != CompressionCodecName.ZSTD || level == null) {
+			return hadoopConfiguration;
+		}
+		return zstdConfigurations.computeIfAbsent(level, ignored -> {
+			Configuration configuration = new Configuration(hadoopConfiguration);
+			configuration.setInt(ZstandardCodec.PARQUET_COMPRESS_ZSTD_LEVEL, level);
+			return configuration;
+		});
+	}
 }
@@ -1,28 +1,224 @@
 package com.example.kafka.s3.sink.stream;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 
-import com.example.kafka.s3.sink.avro.AvroDecoderInterface;
 import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.writer.PendingAck;
+import com.example.kafka.s3.sink.writer.ReceivedAvro;
+import com.example.kafka.s3.sink.writer.RecordOrigin;
 import com.example.kafka.s3.sink.writer.WriterRouter;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class AvroToParquetStream {
 
 	@Bean
-	public Consumer<Message<byte[]>> avroToParquet(AvroDecoderInterface decoder, WriterRouter router) {
+	public Consumer<Message<byte[]>> avroToParquet(DecodeStage decoder, WriterRouter router,
+			MeterRegistry meterRegistry) {
+		// Buffers for different partitions and dates flush out of order, so acknowledgements are released
+		// in offset order per partition: a later offset is never committed past a record still in memory.
+		Map<TopicPartition, OrderedAcknowledgements> acknowledgements = new ConcurrentHashMap<>();
+		DecodedRecords decodedRecords = new DecodedRecords(meterRegistry);
 		return message -> {
-			String topic = (String) message.getHeaders().get(KafkaHeaders.RECEIVED_TOPIC);
+			MessageHeaders headers = message.getHeaders();
+			String topic = (String) headers.get(KafkaHeaders.RECEIVED_TOPIC);
 			if (topic == null || topic.isBlank()) {
 				throw new IllegalArgumentException("Missing Kafka topic header for message");
 			}
 			DecodedAvro decoded = decoder.decode(message.getPayload());
-			router.write(topic, decoded);
+			decodedRecords.count(topic, decoded);
+			RecordOrigin origin = origin(topic, headers);
+			OrderedAcknowledgements partitionAcks = acknowledgements.computeIfAbsent(
+					new TopicPartition(topic, origin.partition()), ignored -> new OrderedAcknowledgements());
+			// Only acknowledged once every buffer holding these records has been flushed.
+			write(partitionAcks, headers, ack -> router.write(origin, decoded, ack));
 		};
 	}
+
+	/**
+	 * Batch-mode variant of {@link #avroToParquet}: receives a whole poll, decodes every payload before
+	 * buffering anything (in parallel when the decode stage has workers) and hands the poll to the router
+	 * in one call. Select it with {@code spring.cloud.function.definition=avroToParquetBatch}. A payload
+	 * that cannot be decoded, or that belongs to a topic without a usable mapping, is reported as a
+	 * {@link BatchListenerFailedException} with its index, so the batch error handler retries and then skips
+	 * or dead-letters only that record.
+	 */
+	@Bean
+	public Consumer<Message<List<byte[]>>> avroToParquetBatch(DecodeStage decoder, WriterRouter router,
+			AppProperties properties, MeterRegistry meterRegistry) {
+		Duration writeTimeout = properties.getUpload().getShutdownTimeout();
+		OrderedAcknowledgements acknowledgements = new OrderedAcknowledgements();
+		DecodedRecords decodedRecords = new DecodedRecords(meterRegistry);
+		return message -> {
+			List<byte[]> payloads = message.getPayload();
+			MessageHeaders headers = message.getHeaders();
+			List<?> topics = headerList(headers, KafkaHeaders.RECEIVED_TOPIC);
+			List<?> partitions = headerList(headers, KafkaHeaders.RECEIVED_PARTITION);
+			List<?> timestamps = headerList(headers, KafkaHeaders.RECEIVED_TIMESTAMP);
+			if (topics.size() != payloads.size()) {
+				throw new IllegalArgumentException("Missing Kafka topic header for batch of " + payloads.size()
+						+ " messages");
+			}
+
+			List<RecordOrigin> origins = new ArrayList<>(payloads.size());
+			for (int i = 0; i < payloads.size(); i++) {
+				String topic = (String) topics.get(i);
+				if (topic == null || topic.isBlank()) {
+					throw new IllegalArgumentException("Missing Kafka topic header for message " + i + " of batch");
+				}
+				origins.add(new RecordOrigin(topic,
+						i < partitions.size() ? (Integer) partitions.get(i) : RecordOrigin.UNKNOWN_PARTITION,
+						i < timestamps.size() ? Instant.ofEpochMilli((Long) timestamps.get(i)) : null));
+			}
+			// Only the payloads before an unmapped one are decoded, since the poll stops there.
+			int unmapped = origins.size();
+			IllegalArgumentException unmappedFailure = null;
+			for (int i = 0; i < origins.size(); i++) {
+				try {
+					router.requireMapping(origins.get(i).topic());
+				} catch (IllegalArgumentException ex) {
+					unmapped = i;
+					unmappedFailure = ex;
+					break;
+				}
+			}
+			List<DecodedAvro> decoded;
+			try {
+				decoded = decoder.decodeAll(unmapped == payloads.size() ? payloads : payloads.subList(0, unmapped));
+			} catch (PayloadDecodingException ex) {
+				writeBeforeFailure(acknowledgements, router, received(origins, ex.decodedBefore(), decodedRecords),
+						writeTimeout);
+				throw new BatchListenerFailedException(ex.getMessage(), ex, ex.index());
+			}
+			List<ReceivedAvro> received = received(origins, decoded, decodedRecords);
+			if (unmappedFailure != null) {
+				writeBeforeFailure(acknowledgements, router, received, writeTimeout);
+				throw new BatchListenerFailedException(unmappedFailure.getMessage(), unmappedFailure, unmapped);
+			}
+			write(acknowledgements, headers, ack -> router.writeAll(received, ack));
+		};
+	}
+
+	private static List<ReceivedAvro> received(List<RecordOrigin> origins, List<DecodedAvro> decoded,
+			DecodedRecords decodedRecords) {
+		List<ReceivedAvro> received = new ArrayList<>(decoded.size());
+		for (int i = 0; i < decoded.size(); i++) {
+			decodedRecords.count(origins.get(i).topic(), decoded.get(i));
+			received.add(new ReceivedAvro(origins.get(i), decoded.get(i)));
+		}
+		return received;
+	}
+
+	/**
+	 * Writes the payloads before a failed one and waits until they, and every earlier poll, are
+	 * written. Once the listener throws, the batch error handler commits the offsets before the failed
+	 * record, and after its retries the failed record's own offset, so nothing below them may still be
+	 * sitting in a buffer.
+	 */
+	private static void writeBeforeFailure(OrderedAcknowledgements acknowledgements, WriterRouter router,
+			List<ReceivedAvro> received, Duration timeout) {
+		CountDownLatch written = new CountDownLatch(1);
+		// Completes only after every earlier slot. It must not acknowledge, since a batch acknowledgement
+		// would also commit the failed record and those after it.
+		PendingAck ack = acknowledgements.next(written::countDown);
+		try {
+			router.writeAll(received, ack);
+		} finally {
+			ack.release();
+		}
+		router.flushNow();
+		try {
+			if (!written.await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new IllegalStateException("Buffered records were not written within " + timeout
+						+ ", so the failed batch cannot be committed past them");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for buffered records to be written", ex);
+		}
+	}
+
+	private static RecordOrigin origin(String topic, MessageHeaders headers) {
+		Integer partition = headers.get(KafkaHeaders.RECEIVED_PARTITION, Integer.class);
+		Long timestamp = headers.get(KafkaHeaders.RECEIVED_TIMESTAMP, Long.class);
+		return new RecordOrigin(topic,
+				partition != null ? partition : RecordOrigin.UNKNOWN_PARTITION,
+				timestamp != null ? Instant.ofEpochMilli(timestamp) : null);
+	}
+
+	/**
+	 * Hands the records to the router under the next acknowledgement slot. If the router throws, the slot
+	 * completes without acknowledging: the error handler seeks back and retries the records (or recovers
+	 * them to the DLQ and commits them itself), so later acknowledgements must not wait on this one.
+	 */
+	private static void write(OrderedAcknowledgements acknowledgements, MessageHeaders headers,
+			Consumer<PendingAck> write) {
+		Acknowledgment acknowledgment = headers.get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+		if (acknowledgment == null) {
+			write.accept(PendingAck.NONE);
+			return;
+		}
+		AtomicBoolean written = new AtomicBoolean();
+		PendingAck ack = acknowledgements.next(() -> {
+			if (written.get()) {
+				acknowledgment.acknowledge();
+			}
+		});
+		try {
+			write.accept(ack);
+			written.set(true);
+		} finally {
+			ack.release();
+		}
+	}
+
+	private static List<?> headerList(MessageHeaders headers, String name) {
+		Object value = headers.get(name);
+		return value instanceof List<?> list ? list : List.of();
+	}
+
+	/**
+	 * {@code sink.records.decoded} counters, cached per topic to keep registry lookups off the hot path.
+	 */
+	private static final class DecodedRecords {
+
+		private final MeterRegistry meterRegistry;
+		private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+		private DecodedRecords(MeterRegistry meterRegistry) {
+			this.meterRegistry = meterRegistry;
+		}
+
+		private void count(String topic, DecodedAvro decoded) {
+			if (decoded == null) {
+				return;
+			}
+			counters.computeIfAbsent(topic, ignored -> Counter.builder("sink.records.decoded")
+					.description("Avro records decoded from Kafka payloads")
+					.tag("topic", topic)
+					.register(meterRegistry))
+					.increment(decoded.records().size());
+		}
+	}
 }
@@ -0,0 +1,46 @@
+package com.example.kafka.s3.sink.stream;
+
+import org.springframework.cloud.stream.binding.BindingService;
+import org.springframework.cloud.stream.endpoint.BindingsLifecycleController;
+import org.springframework.cloud.stream.endpoint.BindingsLifecycleController.State;
+import org.springframework.stereotype.Component;
+
+import com.example.kafka.s3.sink.writer.IntakeControl;
+
+/**
+ * Pauses and resumes every consumer binding through the binder, which pauses the Kafka consumers without
+ * leaving the group. Records from the current poll are still delivered after a pause. Stopping a binding
+ * closes its consumer, so its partitions move to other instances from the last committed offset.
+ */
+@Component
+public class BindingIntakeControl implements IntakeControl {
+
+	private final BindingService bindingService;
+	private final BindingsLifecycleController bindings;
+
+	public BindingIntakeControl(BindingService bindingService, BindingsLifecycleController bindings) {
+		this.bindingService = bindingService;
+		this.bindings = bindings;
+	}
+
+	@Override
+	public void pause() {
+		changeConsumers(State.PAUSED);
+	}
+
+	@Override
+	public void resume() {
+		changeConsumers(State.RESUMED);
+	}
+
+	@Override
+	public void stop() {
+		changeConsumers(State.STOPPED);
+	}
+
+	private void changeConsumers(State state) {
+		for (String name : bindingService.getConsumerBindingNames()) {
+			bindings.changeState(name, state);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.kafka.s3.sink.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.example.kafka.s3.sink.avro.AvroDecoderInterface;
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Decodes the payloads of a poll on a pool of decoder threads. Results are returned in payload order,
+ * so per-partition ordering is preserved when they are handed to the router. With a concurrency of zero
+ * payloads are decoded inline on the caller.
+ */
+@Component
+public class DecodeStage {
+
+	private final AvroDecoderInterface decoder;
+	private final ExecutorService executor;
+	private final Timer queueTime;
+	private final Timer decodeTime;
+
+	public DecodeStage(AvroDecoderInterface decoder, AppProperties properties, MeterRegistry meterRegistry) {
+		this.decoder = decoder;
+		this.executor = createExecutor(properties.getDecode());
+		this.queueTime = Timer.builder("sink.decode.queue.time")
+				.description("Time a payload waits for a decoder thread")
+				.register(meterRegistry);
+		this.decodeTime = Timer.builder("sink.decode.time")
+				.description("Time spent decoding one Avro payload")
+				.register(meterRegistry);
+	}
+
+	public DecodedAvro decode(byte[] payload) {
+		return decodeTime.record(() -> decoder.decode(payload));
+	}
+
+	/**
+	 * Decodes every payload in order. The first payload that fails is reported as a
+	 * {@link PayloadDecodingException} together with the payloads decoded before it.
+	 */
+	public List<DecodedAvro> decodeAll(List<byte[]> payloads) {
+		List<DecodedAvro> decoded = new ArrayList<>(payloads.size());
+		if (executor == null || payloads.size() < 2) {
+			for (byte[] payload : payloads) {
+				try {
+					decoded.add(decode(payload));
+				} catch (RuntimeException ex) {
+					throw new PayloadDecodingException(decoded.size(), List.copyOf(decoded), ex);
+				}
+			}
+			return decoded;
+		}
+
+		List<Future<DecodedAvro>> futures = new ArrayList<>(payloads.size());
+		for (byte[] payload : payloads) {
+			long submitted = System.nanoTime();
+			futures.add(executor.submit(() -> {
+				queueTime.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+				return decode(payload);
+			}));
+		}
+		try {
+			for (Future<DecodedAvro> future : futures) {
+				decoded.add(join(future, decoded));
+			}
+			return decoded;
+		} finally {
+			if (decoded.size() < futures.size()) {
+				futures.forEach(future -> future.cancel(true));
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	private static DecodedAvro join(Future<DecodedAvro> future, List<DecodedAvro> decodedBefore) {
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for Avro decoding", ex);
+		} catch (ExecutionException ex) {
+			throw new PayloadDecodingException(decodedBefore.size(), List.copyOf(decodedBefore), ex.getCause());
+		}
+	}
+
+	private static ExecutorService createExecutor(AppProperties.DecodeProperties decode) {
+		if (decode.getConcurrency() <= 0) {
+			return null;
+		}
+		ThreadFactory threadFactory = decode.isVirtualThreads()
+				? Thread.ofVirtual().name("avro-decoder-", 0).factory()
+				: Thread.ofPlatform().name("avro-decoder-", 0).daemon(true).factory();
+		return Executors.newFixedThreadPool(decode.getConcurrency(), threadFactory);
+	}
+}
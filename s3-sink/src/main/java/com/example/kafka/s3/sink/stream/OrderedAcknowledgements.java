@@ -0,0 +1,47 @@
+package com.example.kafka.s3.sink.stream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.example.kafka.s3.sink.writer.PendingAck;
+
+/**
+ * Fires acknowledgements in the order they were consumed. A manual acknowledgement commits the
+ * latest offset it covers (of one partition for a record, of every partition in the poll for a batch),
+ * so it must not run while an earlier message still has records buffered; otherwise those records
+ * would be skipped after a restart. The committed offset is therefore the highest contiguous flushed one.
+ */
+final class OrderedAcknowledgements {
+
+	private final Deque<Slot> pending = new ArrayDeque<>();
+
+	PendingAck next(Runnable acknowledge) {
+		Slot slot = new Slot(acknowledge);
+		synchronized (this) {
+			pending.addLast(slot);
+		}
+		return PendingAck.of(() -> complete(slot));
+	}
+
+	synchronized int pendingCount() {
+		return pending.size();
+	}
+
+	private synchronized void complete(Slot slot) {
+		slot.done = true;
+		// Acknowledging only queues the commit for the consumer thread, so holding the lock is cheap and
+		// keeps the commits strictly ordered.
+		while (!pending.isEmpty() && pending.peekFirst().done) {
+			pending.pollFirst().acknowledge.run();
+		}
+	}
+
+	private static final class Slot {
+		private final Runnable acknowledge;
+		private boolean done;
+
+		private Slot(Runnable acknowledge) {
+			this.acknowledge = acknowledge;
+		}
+	}
+}
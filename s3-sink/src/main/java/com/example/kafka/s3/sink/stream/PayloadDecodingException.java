@@ -0,0 +1,30 @@
+package com.example.kafka.s3.sink.stream;
+
+import java.util.List;
+
+import com.example.kafka.s3.sink.avro.AvroDecodingException;
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+
+/**
+ * A payload of a poll failed to decode. Carries its index in the poll, so the batch error handler can
+ * skip or dead-letter just that record, and the payloads decoded before it, so they can still be written.
+ */
+public class PayloadDecodingException extends AvroDecodingException {
+
+	private final int index;
+	private final transient List<DecodedAvro> decodedBefore;
+
+	public PayloadDecodingException(int index, List<DecodedAvro> decodedBefore, Throwable cause) {
+		super("Failed to decode payload " + index + " of batch", cause);
+		this.index = index;
+		this.decodedBefore = decodedBefore;
+	}
+
+	public int index() {
+		return index;
+	}
+
+	public List<DecodedAvro> decodedBefore() {
+		return decodedBefore;
+	}
+}
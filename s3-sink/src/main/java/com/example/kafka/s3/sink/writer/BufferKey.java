@@ -0,0 +1,8 @@
+package com.example.kafka.s3.sink.writer;
+
+/**
+ * Identifies one buffer: records from a single Kafka partition that land in a single output partition
+ * (for example {@code date=2024-01-01}) share a buffer and roll their own files.
+ */
+record BufferKey(String topic, int partition, String outputPartition) {
+}
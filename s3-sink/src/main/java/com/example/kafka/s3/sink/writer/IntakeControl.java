@@ -0,0 +1,32 @@
+package com.example.kafka.s3.sink.writer;
+
+/**
+ * Stops and restarts the flow of records into the sink, used by {@link MemoryBudget} for backpressure
+ * and by {@link WriterRouter} to stop consuming once a batch cannot be written.
+ */
+public interface IntakeControl {
+
+	IntakeControl NONE = new IntakeControl() {
+		@Override
+		public void pause() {
+		}
+
+		@Override
+		public void resume() {
+		}
+
+		@Override
+		public void stop() {
+		}
+	};
+
+	void pause();
+
+	void resume();
+
+	/**
+	 * Stops consuming until the sink is restarted. Offsets past an unwritten record are never committed,
+	 * so everything from that record on is redelivered.
+	 */
+	void stop();
+}
@@ -3,10 +3,15 @@ package com.example.kafka.s3.sink.writer;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.parquet.hadoop.ParquetWriter;
 import org.springframework.stereotype.Component;
 
 import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
 import com.example.kafka.s3.sink.parquet.ParquetConverter;
 
 @Component
@@ -19,12 +24,60 @@ public class LocalParquetWriter {
 	}
 
 	public Path write(DecodedAvro decoded, Path outputPath) {
+		return write(decoded, outputPath, null);
+	}
+
+	public Path write(DecodedAvro decoded, Path outputPath, AppProperties.ParquetProperties options) {
+		return write(decoded.schema(), decoded.records(), outputPath, options);
+	}
+
+	/**
+	 * Writes the file under a hidden in-progress name and moves it into place once complete, so a failed
+	 * write leaves nothing at {@code outputPath} and can be retried with the same path.
+	 */
+	public Path write(Schema schema, Iterable<GenericRecord> records, Path outputPath,
+			AppProperties.ParquetProperties options) {
+		Path inProgressPath = inProgressPath(outputPath);
 		try {
 			Files.createDirectories(outputPath.getParent());
-			parquetConverter.write(decoded, outputPath);
+			Files.deleteIfExists(inProgressPath);
+			parquetConverter.write(schema, records, inProgressPath, options);
+			Files.move(inProgressPath, outputPath, StandardCopyOption.ATOMIC_MOVE);
 			return outputPath;
 		} catch (IOException ex) {
+			deleteQuietly(inProgressPath);
 			throw new ParquetWriteException("Failed to write parquet file locally", ex);
+		} catch (RuntimeException ex) {
+			deleteQuietly(inProgressPath);
+			throw ex;
+		}
+	}
+
+	public StreamingParquetFile open(Schema schema, Path outputPath) {
+		return open(schema, outputPath, null);
+	}
+
+	public StreamingParquetFile open(Schema schema, Path outputPath, AppProperties.ParquetProperties options) {
+		Path inProgressPath = inProgressPath(outputPath);
+		try {
+			Files.createDirectories(outputPath.getParent());
+			ParquetWriter<GenericRecord> writer = parquetConverter.open(schema, inProgressPath, options);
+			return new StreamingParquetFile(schema, writer,
+					() -> Files.move(inProgressPath, outputPath, StandardCopyOption.ATOMIC_MOVE),
+					() -> deleteQuietly(inProgressPath));
+		} catch (IOException ex) {
+			throw new ParquetWriteException("Failed to open parquet file locally", ex);
+		}
+	}
+
+	private static Path inProgressPath(Path outputPath) {
+		return outputPath.resolveSibling("." + outputPath.getFileName() + ".inprogress");
+	}
+
+	private static void deleteQuietly(Path inProgressPath) {
+		try {
+			Files.deleteIfExists(inProgressPath);
+		} catch (IOException ignored) {
 		}
 	}
 }
@@ -0,0 +1,144 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Process-wide cap on the estimated heap bytes held by {@link WriterRouter} buffers and by sealed batches
+ * waiting to be written. Reservations never block, since the records are already decoded; instead,
+ * intake is paused once the budget is used up and resumed after flushes bring usage back down to
+ * {@code app.memory.resumeRatio} of it. The router uses {@link #excess()} to decide how much to seal so
+ * that the writes in progress are enough to get there. Without {@code app.memory.budget} nothing is
+ * limited.
+ */
+@Component
+public class MemoryBudget {
+
+	private static final Logger log = LoggerFactory.getLogger(MemoryBudget.class);
+
+	private final long limit;
+	private final long resumeAt;
+	private final IntakeControl intake;
+	private final AtomicLong used = new AtomicLong();
+	// Part of used that belongs to sealed batches, which is released as soon as they are written.
+	private final AtomicLong sealed = new AtomicLong();
+	private final Timer pauseTime;
+	// Guards the pause state so pause and resume calls reach the binder in order.
+	private final Object pauseLock = new Object();
+	private volatile boolean paused;
+	private long pausedAt;
+
+	public MemoryBudget(AppProperties properties, IntakeControl intake, MeterRegistry meterRegistry) {
+		AppProperties.MemoryProperties memory = properties.getMemory();
+		this.limit = memory.getBudget() != null ? memory.getBudget().toBytes() : 0;
+		this.resumeAt = (long) (limit * Math.min(Math.max(memory.getResumeRatio(), 0.0), 1.0));
+		this.intake = intake;
+		Gauge.builder("sink.memory.budget.used", used, AtomicLong::get)
+				.description("Estimated heap bytes reserved by buffered and queued records")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("sink.memory.budget.limit", () -> limit)
+				.description("Configured memory budget, zero when unlimited")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("sink.consumer.paused", this, budget -> budget.paused ? 1 : 0)
+				.description("Whether Kafka consumption is paused by the memory budget")
+				.register(meterRegistry);
+		this.pauseTime = Timer.builder("sink.consumer.pause.time")
+				.description("How long Kafka consumption stayed paused by the memory budget")
+				.register(meterRegistry);
+	}
+
+	public static MemoryBudget unlimited() {
+		return new MemoryBudget(new AppProperties(), IntakeControl.NONE, new SimpleMeterRegistry());
+	}
+
+	public void reserve(long bytes) {
+		if (limit <= 0 || bytes <= 0) {
+			return;
+		}
+		if (used.addAndGet(bytes) >= limit) {
+			pause();
+		}
+	}
+
+	/**
+	 * Marks reserved bytes as handed to the writers; they stay reserved until {@link #release(long)}.
+	 */
+	public void seal(long bytes) {
+		if (limit <= 0 || bytes <= 0) {
+			return;
+		}
+		sealed.addAndGet(bytes);
+	}
+
+	public void release(long bytes) {
+		if (limit <= 0 || bytes <= 0) {
+			return;
+		}
+		sealed.addAndGet(-bytes);
+		if (used.addAndGet(-bytes) <= resumeAt) {
+			resume();
+		}
+	}
+
+	public boolean exhausted() {
+		return limit > 0 && used.get() >= limit;
+	}
+
+	/**
+	 * Once the budget is used up, the bytes that still sit in buffers beyond the resume level: sealing that
+	 * much brings usage down to where intake resumes once the sealed batches are written. Zero otherwise.
+	 */
+	public long excess() {
+		if (!exhausted()) {
+			return 0;
+		}
+		return Math.max(used.get() - sealed.get() - resumeAt, 0);
+	}
+
+	public long used() {
+		return used.get();
+	}
+
+	public boolean paused() {
+		return paused;
+	}
+
+	private void pause() {
+		synchronized (pauseLock) {
+			if (paused || used.get() < limit) {
+				return;
+			}
+			paused = true;
+			pausedAt = System.nanoTime();
+			log.warn("Memory budget of {} bytes used up, pausing consumption", limit);
+			intake.pause();
+		}
+	}
+
+	private void resume() {
+		synchronized (pauseLock) {
+			if (!paused || used.get() > resumeAt) {
+				return;
+			}
+			paused = false;
+			long pausedFor = System.nanoTime() - pausedAt;
+			pauseTime.record(pausedFor, TimeUnit.NANOSECONDS);
+			log.info("Memory budget back to {} bytes after {} ms, resuming consumption", used.get(),
+					TimeUnit.NANOSECONDS.toMillis(pausedFor));
+			intake.resume();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference-counted acknowledgement for a consumed Kafka message. The creator holds one reference and
+ * every buffer that takes records from the message holds another; the acknowledgement fires once the
+ * creator and all of those buffers have released it, i.e. once every record is durably written.
+ */
+public final class PendingAck {
+
+	public static final PendingAck NONE = new PendingAck(() -> {
+	});
+
+	private final Runnable acknowledge;
+	private final AtomicInteger references = new AtomicInteger(1);
+
+	private PendingAck(Runnable acknowledge) {
+		this.acknowledge = acknowledge;
+	}
+
+	public static PendingAck of(Runnable acknowledge) {
+		return acknowledge == null ? NONE : new PendingAck(acknowledge);
+	}
+
+	void retain() {
+		if (this != NONE) {
+			references.incrementAndGet();
+		}
+	}
+
+	public void release() {
+		if (this != NONE && references.decrementAndGet() == 0) {
+			acknowledge.run();
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.example.kafka.s3.sink.writer;
+
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+
+/**
+ * A decoded payload together with the Kafka record it was read from, as handed to
+ * {@link WriterRouter#writeAll}.
+ */
+public record ReceivedAvro(RecordOrigin origin, DecodedAvro decoded) {
+}
@@ -0,0 +1,16 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.time.Instant;
+
+/**
+ * Where a decoded payload came from. A {@code null} timestamp means the record time is unknown and
+ * the sink clock is used instead.
+ */
+public record RecordOrigin(String topic, int partition, Instant timestamp) {
+
+	public static final int UNKNOWN_PARTITION = -1;
+
+	public static RecordOrigin of(String topic) {
+		return new RecordOrigin(topic, UNKNOWN_PARTITION, null);
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Cheap estimate of the uncompressed size of Avro records, used for byte-based flush triggers.
+ */
+final class RecordSizeEstimator {
+
+	private RecordSizeEstimator() {
+	}
+
+	static long estimate(List<GenericRecord> records) {
+		long total = 0;
+		for (GenericRecord record : records) {
+			total += estimate(record.getSchema(), record);
+		}
+		return total;
+	}
+
+	static long estimate(Schema schema, Object value) {
+		if (value == null) {
+			return 0;
+		}
+		return switch (schema.getType()) {
+			case RECORD -> {
+				GenericRecord record = (GenericRecord) value;
+				long size = 0;
+				for (Schema.Field field : schema.getFields()) {
+					size += estimate(field.schema(), record.get(field.pos()));
+				}
+				yield size;
+			}
+			case STRING -> value instanceof Utf8 utf8 ? utf8.getByteLength() : utf8Length(value.toString());
+			case BYTES -> value instanceof ByteBuffer buffer ? buffer.remaining() : 0;
+			case FIXED -> schema.getFixedSize();
+			case ARRAY -> {
+				long size = 0;
+				for (Object element : (Collection<?>) value) {
+					size += estimate(schema.getElementType(), element);
+				}
+				yield size;
+			}
+			case MAP -> {
+				long size = 0;
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+					size += utf8Length(entry.getKey().toString()) + estimate(schema.getValueType(), entry.getValue());
+				}
+				yield size;
+			}
+			case UNION -> estimate(schema.getTypes().get(GenericData.get().resolveUnion(schema, value)), value);
+			case INT, FLOAT, ENUM -> 4;
+			case LONG, DOUBLE -> 8;
+			case BOOLEAN -> 1;
+			case NULL -> 0;
+		};
+	}
+
+	/**
+	 * Bytes the string takes once encoded, as Avro and Parquet store it, counted without encoding it.
+	 */
+	private static long utf8Length(CharSequence text) {
+		long length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+}
@@ -0,0 +1,261 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * Parquet {@link OutputFile} that streams bytes into an S3 multipart upload. Parts are sent as the
+ * in-memory part buffer fills, the upload is completed on close and aborted on failure. The part
+ * buffer starts small and grows up to the part size, so small objects never hold a full part in
+ * memory. Objects smaller than one part are sent with a single PUT instead. Request latency and uploaded bytes are
+ * recorded as {@code sink.s3.request.time} and {@code sink.s3.uploaded.bytes}.
+ */
+public class S3MultipartOutputFile implements OutputFile {
+
+	static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	private final S3Client s3Client;
+	private final String bucket;
+	private final String key;
+	private final int partSize;
+	private final Timer putTime;
+	private final Timer uploadPartTime;
+	private final Timer completeTime;
+	private final Counter uploadedBytes;
+	private S3MultipartOutputStream stream;
+
+	public S3MultipartOutputFile(S3Client s3Client, String bucket, String key, int partSize,
+			MeterRegistry meterRegistry) {
+		this.s3Client = s3Client;
+		this.bucket = bucket;
+		this.key = key;
+		this.partSize = partSize;
+		this.putTime = requestTimer(meterRegistry, "put");
+		this.uploadPartTime = requestTimer(meterRegistry, "upload-part");
+		this.completeTime = requestTimer(meterRegistry, "complete");
+		this.uploadedBytes = Counter.builder("sink.s3.uploaded.bytes")
+				.description("Bytes sent to S3 in PUT and upload-part requests")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	private static Timer requestTimer(MeterRegistry meterRegistry, String operation) {
+		return Timer.builder("sink.s3.request.time")
+				.description("Latency of S3 requests that carry or complete Parquet data")
+				.tag("operation", operation)
+				.register(meterRegistry);
+	}
+
+	@Override
+	public PositionOutputStream create(long blockSizeHint) {
+		return createOrOverwrite(blockSizeHint);
+	}
+
+	@Override
+	public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+		if (stream != null) {
+			throw new IllegalStateException("Output stream already created for s3://" + bucket + "/" + key);
+		}
+		stream = new S3MultipartOutputStream();
+		return stream;
+	}
+
+	@Override
+	public boolean supportsBlockSize() {
+		return false;
+	}
+
+	@Override
+	public long defaultBlockSize() {
+		return 0;
+	}
+
+	public String getPath() {
+		return "s3://" + bucket + "/" + key;
+	}
+
+	public long length() {
+		return stream != null ? stream.getPos() : 0;
+	}
+
+	public void abort() {
+		if (stream != null) {
+			stream.abort();
+		}
+	}
+
+	int bufferCapacity() {
+		return stream != null ? stream.buffer.length : 0;
+	}
+
+	private class S3MultipartOutputStream extends PositionOutputStream {
+
+		private byte[] buffer = new byte[Math.min(partSize, INITIAL_BUFFER_SIZE)];
+		private final List<CompletedPart> parts = new ArrayList<>();
+		private int buffered;
+		private long position;
+		private String uploadId;
+		private boolean closed;
+		private boolean aborted;
+
+		@Override
+		public long getPos() {
+			return position;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			ensureOpen();
+			ensureCapacity(1);
+			buffer[buffered++] = (byte) b;
+			position++;
+			if (buffered == partSize) {
+				uploadPart();
+			}
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			ensureOpen();
+			while (length > 0) {
+				int chunk = Math.min(length, partSize - buffered);
+				ensureCapacity(chunk);
+				System.arraycopy(bytes, offset, buffer, buffered, chunk);
+				buffered += chunk;
+				offset += chunk;
+				length -= chunk;
+				position += chunk;
+				if (buffered == partSize) {
+					uploadPart();
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (aborted) {
+				return;
+			}
+			try {
+				if (uploadId == null) {
+					putTime.record(() -> s3Client.putObject(PutObjectRequest.builder()
+							.bucket(bucket)
+							.key(key)
+							.build(), currentBuffer()));
+					uploadedBytes.increment(buffered);
+					return;
+				}
+				if (buffered > 0) {
+					uploadPart();
+				}
+				completeTime.record(() -> s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+						.bucket(bucket)
+						.key(key)
+						.uploadId(uploadId)
+						.multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+						.build()));
+			} catch (SdkException ex) {
+				abort();
+				throw new IOException("Failed to complete upload to " + getPath(), ex);
+			}
+		}
+
+		private void uploadPart() throws IOException {
+			try {
+				if (uploadId == null) {
+					uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+							.bucket(bucket)
+							.key(key)
+							.build()).uploadId();
+				}
+				int partNumber = parts.size() + 1;
+				UploadPartResponse response = uploadPartTime.record(() -> s3Client.uploadPart(UploadPartRequest.builder()
+						.bucket(bucket)
+						.key(key)
+						.uploadId(uploadId)
+						.partNumber(partNumber)
+						.contentLength((long) buffered)
+						.build(), currentBuffer()));
+				parts.add(CompletedPart.builder()
+						.partNumber(partNumber)
+						.eTag(response.eTag())
+						.build());
+				uploadedBytes.increment(buffered);
+				buffered = 0;
+			} catch (SdkException ex) {
+				abort();
+				throw new IOException("Failed to upload part " + (parts.size() + 1) + " to " + getPath(), ex);
+			}
+		}
+
+		private void ensureCapacity(int additional) {
+			int required = buffered + additional;
+			if (required <= buffer.length) {
+				return;
+			}
+			int capacity = buffer.length;
+			while (capacity < required) {
+				capacity = (int) Math.min((long) capacity * 2, partSize);
+			}
+			buffer = Arrays.copyOf(buffer, capacity);
+		}
+
+		private RequestBody currentBuffer() {
+			byte[] bytes = buffer;
+			int length = buffered;
+			return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(bytes, 0, length),
+					length, "application/octet-stream");
+		}
+
+		private void abort() {
+			if (aborted) {
+				return;
+			}
+			aborted = true;
+			if (uploadId != null) {
+				try {
+					s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+							.bucket(bucket)
+							.key(key)
+							.uploadId(uploadId)
+							.build());
+				} catch (SdkException ignored) {
+				}
+			}
+		}
+
+		private void ensureOpen() throws IOException {
+			if (aborted) {
+				throw new IOException("Upload to " + getPath() + " was aborted");
+			}
+			if (closed) {
+				throw new IOException("Stream for " + getPath() + " is closed");
+			}
+		}
+	}
+}
@@ -1,49 +1,80 @@
 package com.example.kafka.s3.sink.writer;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.parquet.hadoop.ParquetWriter;
 import org.springframework.stereotype.Component;
 
 import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
 import com.example.kafka.s3.sink.parquet.ParquetConverter;
 
-import software.amazon.awssdk.core.sync.RequestBody;
+import io.micrometer.core.instrument.MeterRegistry;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 @Component
 public class S3ParquetWriter {
 
+	// S3 rejects multipart parts smaller than 5 MiB (other than the last one).
+	private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
 	private final ParquetConverter parquetConverter;
 	private final S3Client s3Client;
+	private final int partSize;
+	private final MeterRegistry meterRegistry;
 
-	public S3ParquetWriter(ParquetConverter parquetConverter, S3Client s3Client) {
+	public S3ParquetWriter(ParquetConverter parquetConverter, S3Client s3Client, AppProperties properties,
+			MeterRegistry meterRegistry) {
 		this.parquetConverter = parquetConverter;
 		this.s3Client = s3Client;
+		this.partSize = (int) Math.max(MIN_PART_SIZE, properties.getS3().getPartSize().toBytes());
+		this.meterRegistry = meterRegistry;
+	}
+
+	public long write(DecodedAvro decoded, String bucket, String key) {
+		return write(decoded, bucket, key, null);
+	}
+
+	public long write(DecodedAvro decoded, String bucket, String key, AppProperties.ParquetProperties options) {
+		return write(decoded.schema(), decoded.records(), bucket, key, options);
 	}
 
-	public void write(DecodedAvro decoded, String bucket, String key) {
-		Path tempFile = null;
+	public long write(Schema schema, Iterable<GenericRecord> records, String bucket, String key,
+			AppProperties.ParquetProperties options) {
+		S3MultipartOutputFile outputFile = new S3MultipartOutputFile(s3Client, bucket, key, partSize, meterRegistry);
+		StreamingParquetFile file = open(schema, outputFile, options);
 		try {
-			tempFile = Files.createTempFile("kafka-s3-sink-", ".parquet");
-			Files.deleteIfExists(tempFile);
-			parquetConverter.write(decoded, tempFile);
-			PutObjectRequest request = PutObjectRequest.builder()
-					.bucket(bucket)
-					.key(key)
-					.build();
-			s3Client.putObject(request, RequestBody.fromFile(tempFile));
-		} catch (IOException ex) {
-			throw new ParquetWriteException("Failed to write parquet file to S3", ex);
-		} finally {
-			if (tempFile != null) {
-				try {
-					Files.deleteIfExists(tempFile);
-				} catch (IOException ignored) {
-				}
+			for (GenericRecord record : records) {
+				file.write(record);
 			}
+		} catch (RuntimeException ex) {
+			file.abort();
+			throw ex;
+		}
+		file.commit();
+		return outputFile.length();
+	}
+
+	public StreamingParquetFile open(Schema schema, String bucket, String key) {
+		return open(schema, bucket, key, null);
+	}
+
+	public StreamingParquetFile open(Schema schema, String bucket, String key,
+			AppProperties.ParquetProperties options) {
+		return open(schema, new S3MultipartOutputFile(s3Client, bucket, key, partSize, meterRegistry), options);
+	}
+
+	private StreamingParquetFile open(Schema schema, S3MultipartOutputFile outputFile,
+			AppProperties.ParquetProperties options) {
+		try {
+			ParquetWriter<GenericRecord> writer = parquetConverter.open(schema, outputFile, options);
+			return new StreamingParquetFile(schema, writer, () -> {
+			}, outputFile::abort);
+		} catch (IOException ex) {
+			outputFile.abort();
+			throw new ParquetWriteException("Failed to open parquet file for S3", ex);
 		}
 	}
 }
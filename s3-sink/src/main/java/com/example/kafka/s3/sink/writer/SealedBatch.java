@@ -0,0 +1,40 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+
+/**
+ * A drained buffer: the records held on the heap followed, when the buffer overflowed, by those in its
+ * spill file. {@code heapBytes} is the estimate reserved from the {@link MemoryBudget}.
+ */
+record SealedBatch(DecodedAvro decoded, SpillFile spill, long estimatedBytes, long heapBytes,
+		List<PendingAck> acks) {
+
+	SealedBatch(DecodedAvro decoded, long estimatedBytes, List<PendingAck> acks) {
+		this(decoded, null, estimatedBytes, estimatedBytes, acks);
+	}
+
+	Schema schema() {
+		return decoded.schema();
+	}
+
+	Iterable<GenericRecord> records() {
+		if (spill == null) {
+			return decoded.records();
+		}
+		return () -> Stream.concat(decoded.records().stream(), StreamSupport.stream(spill.spliterator(), false))
+				.iterator();
+	}
+
+	void discard() {
+		if (spill != null) {
+			spill.delete();
+		}
+	}
+}
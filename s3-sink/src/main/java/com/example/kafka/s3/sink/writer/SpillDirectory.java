@@ -0,0 +1,124 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This process's own subdirectory of {@code app.batch.spillDirectory}, kept under an exclusive file lock
+ * until shutdown. Several sink instances can therefore share the configured directory: at startup each
+ * one deletes only the subdirectories whose lock it can take, which belonged to a process that has exited
+ * and whose spilled records were never acknowledged.
+ */
+final class SpillDirectory {
+
+	static final String INSTANCE_PREFIX = "instance-";
+	static final String LOCK_FILE = ".lock";
+
+	private final Path path;
+	private final FileChannel lock;
+
+	private SpillDirectory(Path path, FileChannel lock) {
+		this.path = path;
+		this.lock = lock;
+	}
+
+	static SpillDirectory open(Path base) {
+		try {
+			Files.createDirectories(base);
+			deleteAbandoned(base);
+			Path path = Files.createTempDirectory(base, INSTANCE_PREFIX);
+			FileChannel channel = FileChannel.open(path.resolve(LOCK_FILE), StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE);
+			try {
+				channel.lock();
+				// Written under the lock: an empty lock file marks a directory that is still being set up.
+				channel.write(ByteBuffer.wrap(Long.toString(ProcessHandle.current().pid())
+						.getBytes(StandardCharsets.US_ASCII)));
+				channel.force(false);
+			} catch (IOException | RuntimeException ex) {
+				channel.close();
+				throw ex;
+			}
+			return new SpillDirectory(path, channel);
+		} catch (IOException ex) {
+			throw new ParquetWriteException("Failed to create spill directory in " + base, ex);
+		}
+	}
+
+	Path path() {
+		return path;
+	}
+
+	/**
+	 * Releases the lock, removing the directory if no spill file is left in it. Files of batches still
+	 * queued for upload stay behind and are deleted by the next instance to start.
+	 */
+	void close() {
+		try {
+			boolean empty;
+			try (var files = Files.newDirectoryStream(path, SpillFile.PREFIX + "*.avro")) {
+				empty = !files.iterator().hasNext();
+			}
+			if (empty) {
+				Files.deleteIfExists(path.resolve(LOCK_FILE));
+			}
+			lock.close();
+			if (empty) {
+				Files.deleteIfExists(path);
+			}
+		} catch (IOException ignored) {
+		}
+	}
+
+	private static void deleteAbandoned(Path base) throws IOException {
+		try (var instances = Files.newDirectoryStream(base, INSTANCE_PREFIX + "*")) {
+			for (Path instance : instances) {
+				if (Files.isDirectory(instance)) {
+					deleteIfAbandoned(instance);
+				}
+			}
+		}
+	}
+
+	private static void deleteIfAbandoned(Path instance) throws IOException {
+		Path lockFile = instance.resolve(LOCK_FILE);
+		try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE);
+				FileLock held = tryLock(channel)) {
+			if (held == null || channel.size() == 0) {
+				return;
+			}
+			try (var files = Files.newDirectoryStream(instance, SpillFile.PREFIX + "*.avro")) {
+				for (Path file : files) {
+					Files.deleteIfExists(file);
+				}
+			}
+			Files.delete(lockFile);
+		} catch (NoSuchFileException ex) {
+			// Being set up or removed by its owner.
+			return;
+		}
+		try {
+			Files.deleteIfExists(instance);
+		} catch (DirectoryNotEmptyException ignored) {
+			// Holds files the sink did not write; leave them for an operator.
+		}
+	}
+
+	private static FileLock tryLock(FileChannel channel) throws IOException {
+		try {
+			return channel.tryLock();
+		} catch (OverlappingFileLockException ex) {
+			// Held by another router in this JVM.
+			return null;
+		}
+	}
+}
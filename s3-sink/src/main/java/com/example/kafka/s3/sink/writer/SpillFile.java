@@ -0,0 +1,213 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+/**
+ * Append-only file of Avro binary records sharing one schema, holding the overflow of a buffer that
+ * passed {@code app.batch.spillThreshold}. No container framing or per-record schema is written; the
+ * file is only read back by this process, with the schema kept here. Each append is encoded in memory
+ * before any of it reaches the file, so a record that fails to encode leaves the file as it was. A failed
+ * file write leaves it in an unknown state, and the spill then refuses further appends and reads.
+ */
+final class SpillFile implements Iterable<GenericRecord> {
+
+	static final String PREFIX = "spill-";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path path;
+	private final Schema schema;
+	private final CountingOutputStream out;
+	private final ByteArrayOutputStream staged = new ByteArrayOutputStream();
+	private final BinaryEncoder encoder;
+	private final GenericDatumWriter<GenericRecord> writer;
+	private long recordCount;
+	private boolean finished;
+	private boolean failed;
+	private InputStream reader;
+
+	private SpillFile(Path path, Schema schema) throws IOException {
+		this.path = path;
+		this.schema = schema;
+		this.out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+		this.encoder = EncoderFactory.get().directBinaryEncoder(staged, null);
+		this.writer = new GenericDatumWriter<>(schema);
+	}
+
+	static SpillFile create(Path directory, Schema schema) {
+		try {
+			Files.createDirectories(directory);
+			return new SpillFile(Files.createTempFile(directory, PREFIX, ".avro"), schema);
+		} catch (IOException ex) {
+			throw new ParquetWriteException("Failed to create spill file in " + directory, ex);
+		}
+	}
+
+	/**
+	 * Appends all of {@code records} or, if one fails to encode, none of them.
+	 */
+	void append(List<GenericRecord> records) {
+		ensureUsable();
+		staged.reset();
+		try {
+			for (GenericRecord record : records) {
+				writer.write(record, encoder);
+			}
+		} catch (IOException ex) {
+			throw new ParquetWriteException("Failed to encode records for " + path, ex);
+		}
+		try {
+			staged.writeTo(out);
+		} catch (IOException ex) {
+			failed = true;
+			throw new ParquetWriteException("Failed to spill records to " + path, ex);
+		}
+		recordCount += records.size();
+	}
+
+	boolean failed() {
+		return failed;
+	}
+
+	long recordCount() {
+		return recordCount;
+	}
+
+	long sizeOnDisk() {
+		return out.count;
+	}
+
+	/**
+	 * Flushes and closes the file for appends; called once the owning buffer is sealed. A failure here
+	 * marks the spill failed, so it surfaces when the sealed batch is read rather than while sealing.
+	 */
+	void finish() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		try {
+			out.close();
+		} catch (IOException ex) {
+			failed = true;
+		}
+	}
+
+	/**
+	 * Streams the spilled records back in append order. The returned record is reused by the next call,
+	 * which suits the Parquet writer since it consumes each record before asking for another.
+	 */
+	@Override
+	public Iterator<GenericRecord> iterator() {
+		ensureUsable();
+		finish();
+		try {
+			closeReader();
+			reader = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+		} catch (IOException ex) {
+			throw new ParquetWriteException("Failed to read spill file " + path, ex);
+		}
+		InputStream input = reader;
+		BinaryDecoder decoder = DecoderFactory.get().directBinaryDecoder(input, null);
+		GenericDatumReader<GenericRecord> datumReader = new GenericDatumReader<>(schema);
+		return new Iterator<>() {
+			private long remaining = recordCount;
+			private GenericRecord reuse;
+
+			@Override
+			public boolean hasNext() {
+				return remaining > 0;
+			}
+
+			@Override
+			public GenericRecord next() {
+				if (remaining <= 0) {
+					throw new NoSuchElementException();
+				}
+				try {
+					reuse = datumReader.read(reuse, decoder);
+				} catch (IOException ex) {
+					throw new ParquetWriteException("Failed to read spill file " + path, ex);
+				}
+				if (--remaining == 0) {
+					closeQuietly(input);
+				}
+				return reuse;
+			}
+		};
+	}
+
+	void delete() {
+		try {
+			if (!finished) {
+				finished = true;
+				out.close();
+			}
+			closeReader();
+		} catch (IOException ignored) {
+		}
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException ignored) {
+		}
+	}
+
+	private void ensureUsable() {
+		if (failed) {
+			throw new ParquetWriteException("Spill file " + path + " is unusable after a failed write", null);
+		}
+	}
+
+	private void closeReader() throws IOException {
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+	}
+
+	private static void closeQuietly(InputStream input) {
+		try {
+			input.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+		private volatile long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+			count += length;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.parquet.hadoop.ParquetWriter;
+
+/**
+ * A Parquet file that stays open while records are appended to its current row group.
+ * The file only becomes visible at its final location once {@link #commit()} succeeds.
+ */
+public class StreamingParquetFile {
+
+	private final Schema schema;
+	private final ParquetWriter<GenericRecord> writer;
+	private final Committer committer;
+	private final Runnable discard;
+	private final List<PendingAck> acks = new ArrayList<>();
+	private long recordCount;
+
+	StreamingParquetFile(Schema schema, ParquetWriter<GenericRecord> writer, Committer committer, Runnable discard) {
+		this.schema = schema;
+		this.writer = writer;
+		this.committer = committer;
+		this.discard = discard;
+	}
+
+	public Schema schema() {
+		return schema;
+	}
+
+	public long recordCount() {
+		return recordCount;
+	}
+
+	public long dataSize() {
+		return writer.getDataSize();
+	}
+
+	public void write(GenericRecord record) {
+		try {
+			writer.write(record);
+			recordCount++;
+		} catch (IOException ex) {
+			throw new ParquetWriteException("Failed to append record to parquet file", ex);
+		}
+	}
+
+	void track(PendingAck ack) {
+		// Consecutive payloads from the same poll share one acknowledgement; one reference is enough.
+		if (!acks.isEmpty() && acks.get(acks.size() - 1) == ack) {
+			return;
+		}
+		ack.retain();
+		acks.add(ack);
+	}
+
+	public void commit() {
+		try {
+			writer.close();
+			committer.commit();
+		} catch (IOException | RuntimeException ex) {
+			discard.run();
+			throw new ParquetWriteException("Failed to commit parquet file", ex);
+		}
+		acks.forEach(PendingAck::release);
+	}
+
+	public void abort() {
+		// Discard first so closing the writer cannot publish a partial file.
+		discard.run();
+		try {
+			writer.close();
+		} catch (IOException | RuntimeException ignored) {
+		}
+	}
+
+	@FunctionalInterface
+	interface Committer {
+		void commit() throws IOException;
+	}
+}
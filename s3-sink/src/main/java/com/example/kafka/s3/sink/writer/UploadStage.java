@@ -0,0 +1,109 @@
+package com.example.kafka.s3.sink.writer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bounded hand-off between {@link WriterRouter} and the Parquet encoders/uploaders. Sealed batches are
+ * queued and drained by a pool of virtual threads; when the queue is full, {@link #submit(Runnable)}
+ * blocks the calling consumer thread until capacity frees up. With a concurrency of zero tasks run
+ * inline on the caller.
+ */
+@Component
+public class UploadStage {
+
+	private static final Logger log = LoggerFactory.getLogger(UploadStage.class);
+
+	private final BlockingQueue<Runnable> queue;
+	private final List<Thread> workers = new ArrayList<>();
+	private final Duration shutdownTimeout;
+	private volatile boolean running = true;
+
+	public UploadStage(AppProperties properties, MeterRegistry meterRegistry) {
+		AppProperties.UploadProperties upload = properties.getUpload();
+		this.queue = new ArrayBlockingQueue<>(Math.max(upload.getQueueCapacity(), 1));
+		this.shutdownTimeout = upload.getShutdownTimeout();
+		Gauge.builder("sink.upload.queue.depth", queue, Collection::size)
+				.description("Sealed Parquet batches waiting for an uploader")
+				.register(meterRegistry);
+		for (int i = 0; i < upload.getConcurrency(); i++) {
+			workers.add(Thread.ofVirtual().name("parquet-uploader-" + i).start(this::drain));
+		}
+	}
+
+	public void submit(Runnable task) {
+		if (workers.isEmpty() || !running) {
+			task.run();
+			return;
+		}
+		try {
+			queue.put(task);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for upload capacity", ex);
+		}
+	}
+
+	public int queueDepth() {
+		return queue.size();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		Instant deadline = Instant.now().plus(shutdownTimeout);
+		for (Thread worker : workers) {
+			try {
+				long remaining = Duration.between(Instant.now(), deadline).toMillis();
+				if (remaining <= 0 || !worker.join(Duration.ofMillis(remaining))) {
+					log.warn("Upload worker {} did not finish within {}", worker.getName(), shutdownTimeout);
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		Runnable task;
+		while ((task = queue.poll()) != null) {
+			runSafely(task);
+		}
+	}
+
+	private void drain() {
+		while (running || !queue.isEmpty()) {
+			try {
+				Runnable task = queue.poll(200, TimeUnit.MILLISECONDS);
+				if (task != null) {
+					runSafely(task);
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void runSafely(Runnable task) {
+		try {
+			task.run();
+		} catch (RuntimeException ex) {
+			log.error("Parquet upload failed", ex);
+		}
+	}
+}
@@ -2,15 +2,29 @@ package com.example.kafka.s3.sink.writer;
 
 import java.nio.file.Path;
 
+import com.example.kafka.s3.sink.config.AppProperties;
 import com.example.kafka.s3.sink.config.TargetType;
 
-public record WriteTarget(TargetType type, Path localPath, String bucket, String key) {
+/**
+ * Resolved output location for a topic. A {@code null} {@code parquet} means the default Parquet writer
+ * options.
+ */
+public record WriteTarget(TargetType type, Path localPath, String bucket, String key,
+		AppProperties.ParquetProperties parquet) {
 
 	public static WriteTarget local(Path localPath) {
-		return new WriteTarget(TargetType.LOCAL, localPath, null, null);
+		return local(localPath, null);
+	}
+
+	public static WriteTarget local(Path localPath, AppProperties.ParquetProperties parquet) {
+		return new WriteTarget(TargetType.LOCAL, localPath, null, null, parquet);
 	}
 
 	public static WriteTarget s3(String bucket, String key) {
-		return new WriteTarget(TargetType.S3, null, bucket, key);
+		return s3(bucket, key, null);
+	}
+
+	public static WriteTarget s3(String bucket, String key, AppProperties.ParquetProperties parquet) {
+		return new WriteTarget(TargetType.S3, null, bucket, key, parquet);
 	}
 }
@@ -1,97 +1,409 @@
 package com.example.kafka.s3.sink.writer;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
 
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.example.kafka.s3.sink.avro.DecodedAvro;
 import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.config.BatchMode;
 import com.example.kafka.s3.sink.config.TargetType;
+import com.example.kafka.s3.sink.mapping.PartitionSpec;
 import com.example.kafka.s3.sink.mapping.TopicMappingResolver;
 import java.time.Clock;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PreDestroy;
 
 @Component
 public class WriterRouter {
 
+	private static final Logger log = LoggerFactory.getLogger(WriterRouter.class);
+
 	private final TopicMappingResolver resolver;
 	private final LocalParquetWriter localWriter;
 	private final S3ParquetWriter s3Writer;
+	private final UploadStage uploadStage;
 	private final AppProperties.BatchProperties batch;
 	private final Clock clock;
-	private final Map<String, BatchBuffer> buffers = new ConcurrentHashMap<>();
+	private final Map<BufferKey, BatchBuffer> buffers = new ConcurrentHashMap<>();
+	private final Map<String, CompressionStats> compression = new ConcurrentHashMap<>();
 	private final ScheduledExecutorService scheduler;
+	// Null when flushConcurrency is 1: interval flushes then run on the scheduler thread itself.
+	private final ExecutorService flushExecutor;
+	private final ReentrantLock flushCycle = new ReentrantLock();
+	private final ReentrantLock memoryRelief = new ReentrantLock();
+	private final MeterRegistry meterRegistry;
+	private final Map<FlushReason, Counter> flushes = new EnumMap<>(FlushReason.class);
+	private final long spillThreshold;
+	private final SpillDirectory spillDirectory;
+	private final MemoryBudget memoryBudget;
+	private final IntakeControl intake;
+	private final AppProperties.UploadProperties upload;
 
 	public WriterRouter(TopicMappingResolver resolver,
 			LocalParquetWriter localWriter,
 			S3ParquetWriter s3Writer,
+			UploadStage uploadStage,
 			AppProperties properties,
-			Clock clock) {
+			MemoryBudget memoryBudget,
+			IntakeControl intake,
+			Clock clock,
+			MeterRegistry meterRegistry) {
 		this.resolver = resolver;
 		this.localWriter = localWriter;
 		this.s3Writer = s3Writer;
+		this.uploadStage = uploadStage;
 		this.batch = properties.getBatch();
+		this.memoryBudget = memoryBudget;
+		this.intake = intake;
+		this.upload = properties.getUpload();
 		this.clock = clock;
+		this.meterRegistry = meterRegistry;
+		this.spillThreshold = batch.getSpillThreshold() != null ? batch.getSpillThreshold().toBytes() : 0;
+		this.spillDirectory = spillThreshold > 0 ? SpillDirectory.open(batch.getSpillDirectory()) : null;
+		for (FlushReason reason : FlushReason.values()) {
+			flushes.put(reason, Counter.builder("sink.flush")
+					.description("Buffers sealed or files rolled, by the limit that triggered them")
+					.tag("reason", reason.tag())
+					.register(meterRegistry));
+		}
+		Gauge.builder("sink.buffers", buffers, Map::size)
+				.description("Buffers currently mapped, one per topic, Kafka partition and output partition")
+				.register(meterRegistry);
+		this.flushExecutor = batch.getFlushConcurrency() > 1
+				? Executors.newFixedThreadPool(batch.getFlushConcurrency(),
+						Thread.ofVirtual().name("parquet-flusher-", 0).factory())
+				: null;
 		this.scheduler = createScheduler();
 	}
 
 	public void write(String topic, DecodedAvro decoded) {
+		write(RecordOrigin.of(topic), decoded, PendingAck.NONE);
+	}
+
+	/**
+	 * Buffers the decoded records. The given acknowledgement is retained until every buffer that
+	 * received records from this payload has written them; the caller still owns and must release
+	 * its own reference once this method returns. Records of a topic without a usable mapping are
+	 * rejected with {@link IllegalArgumentException} before anything is buffered.
+	 */
+	public void write(RecordOrigin origin, DecodedAvro decoded, PendingAck ack) {
 		if (decoded == null || decoded.records().isEmpty()) {
 			return;
 		}
-		List<DecodedAvro> batches = new ArrayList<>();
-		BatchBuffer buffer = buffers.computeIfAbsent(topic, ignored -> new BatchBuffer());
-		buffer.lock.lock();
+		requireMapping(origin.topic());
+		PartitionSpec spec = resolver.partitionSpec(origin.topic());
+		if (!spec.byField()) {
+			append(bufferKey(origin, spec.path(recordTime(origin))), List.of(decoded), ack);
+			return;
+		}
+		Map<BufferKey, List<DecodedAvro>> grouped = new LinkedHashMap<>();
+		group(origin, decoded, spec, grouped);
+		for (Map.Entry<BufferKey, List<DecodedAvro>> entry : grouped.entrySet()) {
+			append(entry.getKey(), entry.getValue(), ack);
+		}
+	}
+
+	/**
+	 * Buffers a whole poll of decoded payloads under one acknowledgement. Payloads are grouped by
+	 * buffer first so each buffer is locked once per poll rather than once per Kafka record, and
+	 * nothing is buffered if any payload belongs to a topic without a usable mapping.
+	 */
+	public void writeAll(List<ReceivedAvro> received, PendingAck ack) {
+		Map<BufferKey, List<DecodedAvro>> grouped = new LinkedHashMap<>();
+		Map<String, PartitionSpec> specs = new HashMap<>();
+		for (ReceivedAvro item : received) {
+			DecodedAvro decoded = item.decoded();
+			if (decoded == null || decoded.records().isEmpty()) {
+				continue;
+			}
+			PartitionSpec spec = specs.computeIfAbsent(item.origin().topic(), topic -> {
+				requireMapping(topic);
+				return resolver.partitionSpec(topic);
+			});
+			group(item.origin(), decoded, spec, grouped);
+		}
+		for (Map.Entry<BufferKey, List<DecodedAvro>> entry : grouped.entrySet()) {
+			append(entry.getKey(), entry.getValue(), ack);
+		}
+	}
+
+	/**
+	 * Adds the payload to the buffers its records belong to. With event-time partitioning a payload can
+	 * span several partition values, so its records are split into one payload per value.
+	 */
+	private void group(RecordOrigin origin, DecodedAvro decoded, PartitionSpec spec,
+			Map<BufferKey, List<DecodedAvro>> grouped) {
+		Instant recordTime = recordTime(origin);
+		if (!spec.byField()) {
+			grouped.computeIfAbsent(bufferKey(origin, spec.path(recordTime)), ignored -> new ArrayList<>())
+					.add(decoded);
+			return;
+		}
+		Map<String, List<GenericRecord>> byPartition = new LinkedHashMap<>();
+		for (GenericRecord record : decoded.records()) {
+			byPartition.computeIfAbsent(spec.path(record, recordTime), ignored -> new ArrayList<>()).add(record);
+		}
+		for (Map.Entry<String, List<GenericRecord>> entry : byPartition.entrySet()) {
+			DecodedAvro split = byPartition.size() == 1
+					? decoded
+					: new DecodedAvro(decoded.schema(), entry.getValue());
+			grouped.computeIfAbsent(bufferKey(origin, entry.getKey()), ignored -> new ArrayList<>()).add(split);
+		}
+	}
+
+	/**
+	 * Fails with {@link IllegalArgumentException} unless records of the topic can be written. Unmapped
+	 * topics would otherwise be buffered under the default daily partitioning and only fail at flush.
+	 */
+	public void requireMapping(String topic) {
+		resolver.requireMapping(topic);
+	}
+
+	private Instant recordTime(RecordOrigin origin) {
+		return origin.timestamp() != null ? origin.timestamp() : Instant.now(clock);
+	}
+
+	private static BufferKey bufferKey(RecordOrigin origin, String outputPartition) {
+		return new BufferKey(origin.topic(), origin.partition(), outputPartition);
+	}
+
+	private void append(BufferKey key, List<DecodedAvro> payloads, PendingAck ack) {
+		if (batch.getMode() == BatchMode.STREAMING) {
+			writeStreaming(key, payloads, ack);
+			return;
+		}
+		List<SealedBatch> batches = new ArrayList<>();
+		BatchBuffer buffer = lockBuffer(key);
 		try {
-			if (buffer.schema != null && !buffer.schema.equals(decoded.schema())) {
-				DecodedAvro drained = buffer.drain();
-				if (drained != null) {
-					batches.add(drained);
+			boolean tracked = false;
+			for (DecodedAvro decoded : payloads) {
+				if (buffer.schema != null && !buffer.schema.equals(decoded.schema())) {
+					SealedBatch drained = buffer.drain();
+					if (drained != null) {
+						batches.add(drained);
+						flushed(FlushReason.SCHEMA_CHANGE);
+						tracked = false;
+					}
+					buffer.schema = decoded.schema();
+				} else if (buffer.schema == null) {
+					buffer.schema = decoded.schema();
 				}
-				buffer.schema = decoded.schema();
-			} else if (buffer.schema == null) {
-				buffer.schema = decoded.schema();
-			}
 
-			buffer.records.addAll(decoded.records());
-			buffer.lastAppend = Instant.now(clock);
+				long estimated = RecordSizeEstimator.estimate(decoded.records());
+				if (buffer.spill == null && spillThreshold > 0 && buffer.bufferedBytes + estimated > spillThreshold) {
+					buffer.spill = SpillFile.create(spillDirectory.path(), buffer.schema);
+				}
+				if (buffer.spill != null) {
+					appendToSpill(key, buffer.spill, decoded.records());
+				} else {
+					buffer.records.addAll(decoded.records());
+					buffer.heapBytes += estimated;
+					memoryBudget.reserve(estimated);
+				}
+				buffer.bufferedBytes += estimated;
+				// One reference per sealed batch that holds records from this acknowledgement.
+				if (!tracked) {
+					ack.retain();
+					buffer.acks.add(ack);
+					tracked = true;
+				}
+				buffer.lastAppend = Instant.now(clock);
 
-			if (buffer.records.size() >= batch.getMaxRecords()) {
-				DecodedAvro drained = buffer.drain();
-				if (drained != null) {
-					batches.add(drained);
+				if (batchLimitReached(key, buffer)) {
+					SealedBatch drained = buffer.drain();
+					if (drained != null) {
+						batches.add(drained);
+						flushed(FlushReason.SIZE);
+						tracked = false;
+					}
 				}
 			}
+			retireIfEmpty(key, buffer);
 		} finally {
 			buffer.lock.unlock();
 		}
 
-		for (DecodedAvro batchToWrite : batches) {
-			writeNow(topic, batchToWrite);
+		for (SealedBatch batchToWrite : batches) {
+			dispatch(key, batchToWrite);
+		}
+		long excess = memoryBudget.excess();
+		if (excess > 0) {
+			relieveMemory(excess);
+		}
+	}
+
+	/**
+	 * Seals the buffers holding the most heap, largest first, until the batches being written cover the
+	 * excess over the budget's resume level. Sealing only the buffer that crossed the limit could leave
+	 * intake paused for good when other buffers hold most of the bytes and no interval flush runs. One
+	 * thread relieves at a time; others carry on appending rather than seal the same bytes twice.
+	 */
+	private void relieveMemory(long excess) {
+		if (!memoryRelief.tryLock()) {
+			return;
+		}
+		try {
+			// Sizes are read once, since appends keep changing them while the list is sorted.
+			List<HeapUsage> largestFirst = new ArrayList<>();
+			buffers.forEach((key, buffer) -> {
+				long heapBytes = buffer.heapBytes;
+				if (heapBytes > 0) {
+					largestFirst.add(new HeapUsage(key, buffer, heapBytes));
+				}
+			});
+			largestFirst.sort(Comparator.comparingLong(HeapUsage::heapBytes).reversed());
+			long sealedBytes = 0;
+			for (HeapUsage usage : largestFirst) {
+				if (sealedBytes >= excess) {
+					break;
+				}
+				SealedBatch drained;
+				usage.buffer().lock.lock();
+				try {
+					drained = usage.buffer().drain();
+					retireIfEmpty(usage.key(), usage.buffer());
+				} finally {
+					usage.buffer().lock.unlock();
+				}
+				if (drained != null) {
+					sealedBytes += drained.heapBytes();
+					flushed(FlushReason.MEMORY);
+					dispatch(usage.key(), drained);
+				}
+			}
+		} finally {
+			memoryRelief.unlock();
 		}
 	}
 
 	@PreDestroy
 	public void shutdown() {
 		try {
-			flushAll();
+			flushAll(FlushReason.SHUTDOWN);
 		} finally {
 			scheduler.shutdownNow();
+			if (flushExecutor != null) {
+				flushExecutor.shutdownNow();
+			}
+			if (spillDirectory != null) {
+				spillDirectory.close();
+			}
+		}
+	}
+
+	private BatchBuffer lockBuffer(BufferKey key) {
+		while (true) {
+			BatchBuffer buffer = buffers.computeIfAbsent(key, this::newBuffer);
+			buffer.lock.lock();
+			if (!buffer.retired) {
+				return buffer;
+			}
+			buffer.lock.unlock();
 		}
 	}
 
+	private void writeStreaming(BufferKey key, List<DecodedAvro> payloads, PendingAck ack) {
+		List<StreamingParquetFile> completed = new ArrayList<>();
+		try {
+			BatchBuffer buffer = lockBuffer(key);
+			try {
+				for (DecodedAvro decoded : payloads) {
+					if (buffer.file != null && !buffer.file.schema().equals(decoded.schema())) {
+						completed.add(buffer.detachFile());
+						flushed(FlushReason.SCHEMA_CHANGE);
+					}
+					if (buffer.file == null) {
+						buffer.file = open(key, decoded.schema());
+						buffer.fileOpenedAt = Instant.now(clock);
+					}
+					for (GenericRecord record : decoded.records()) {
+						buffer.file.write(record);
+					}
+					buffer.file.track(ack);
+					buffer.lastAppend = Instant.now(clock);
+
+					if (fileLimitReached(buffer.file)) {
+						completed.add(buffer.detachFile());
+						flushed(FlushReason.SIZE);
+					}
+				}
+				retireIfEmpty(key, buffer);
+			} catch (RuntimeException ex) {
+				StreamingParquetFile failed = buffer.detachFile();
+				if (failed != null) {
+					failed.abort();
+				}
+				throw ex;
+			} finally {
+				buffer.lock.unlock();
+			}
+		} finally {
+			for (StreamingParquetFile file : completed) {
+				commit(key, file);
+			}
+		}
+	}
+
+	private boolean batchLimitReached(BufferKey key, BatchBuffer buffer) {
+		if (buffer.recordCount() >= batch.getMaxRecords()) {
+			return true;
+		}
+		if (batch.getMaxBytes() != null && buffer.bufferedBytes >= batch.getMaxBytes().toBytes()) {
+			return true;
+		}
+		return batch.getTargetFileSize() != null
+				&& buffer.bufferedBytes * compressionStats(key).ratio >= batch.getTargetFileSize().toBytes();
+	}
+
+	private boolean fileLimitReached(StreamingParquetFile file) {
+		if (file.recordCount() >= batch.getMaxRecords()) {
+			return true;
+		}
+		return batch.getTargetFileSize() != null
+				&& file.dataSize() >= batch.getTargetFileSize().toBytes();
+	}
+
+	private StreamingParquetFile open(BufferKey key, Schema schema) {
+		WriteTarget target = resolver.resolve(key.topic(), key.outputPartition());
+		if (target.type() == TargetType.LOCAL) {
+			return localWriter.open(schema, target.localPath(), target.parquet());
+		}
+		return s3Writer.open(schema, target.bucket(), target.key(), target.parquet());
+	}
+
 	private ScheduledExecutorService createScheduler() {
 		Duration interval = batch.getFlushInterval();
 		if (interval == null || interval.isZero() || interval.isNegative()) {
@@ -118,65 +430,396 @@ public class WriterRouter {
 			return;
 		}
 		Instant now = Instant.now(clock);
-		for (Map.Entry<String, BatchBuffer> entry : buffers.entrySet()) {
-			String topic = entry.getKey();
-			BatchBuffer buffer = entry.getValue();
-			DecodedAvro drained = null;
-			buffer.lock.lock();
+		forEachBuffer(FlushReason.INTERVAL, (key, buffer) -> {
+			SealedBatch drained = null;
+			StreamingParquetFile file = null;
+			// A consumer holding the lock is appending, so the buffer is not idle; leave it for the next
+			// tick rather than make the consumer wait behind this flush.
+			if (!buffer.lock.tryLock()) {
+				return;
+			}
 			try {
 				if (buffer.lastAppend != null
 						&& Duration.between(buffer.lastAppend, now).compareTo(interval) >= 0) {
 					drained = buffer.drain();
 				}
+				// Open files roll on age rather than idle time so steady traffic still produces files.
+				if (buffer.file != null
+						&& Duration.between(buffer.fileOpenedAt, now).compareTo(interval) >= 0) {
+					file = buffer.detachFile();
+				}
+				retireIfEmpty(key, buffer);
 			} finally {
 				buffer.lock.unlock();
 			}
 			if (drained != null) {
-				writeNow(topic, drained);
+				flushed(FlushReason.INTERVAL);
+				dispatch(key, drained);
 			}
-		}
+			if (file != null) {
+				flushed(FlushReason.INTERVAL);
+				commit(key, file);
+			}
+		});
+	}
+
+	/**
+	 * Seals every buffer and rolls every open file now, for callers that need everything received so far
+	 * handed to the writers before they go on. With upload workers the writes may still be queued.
+	 */
+	public void flushNow() {
+		flushAll(FlushReason.FORCED);
 	}
 
-	private void flushAll() {
-		for (Map.Entry<String, BatchBuffer> entry : buffers.entrySet()) {
-			String topic = entry.getKey();
-			BatchBuffer buffer = entry.getValue();
-			DecodedAvro drained = null;
+	private void flushAll(FlushReason reason) {
+		forEachBuffer(reason, (key, buffer) -> {
+			SealedBatch drained = null;
+			StreamingParquetFile file = null;
 			buffer.lock.lock();
 			try {
 				drained = buffer.drain();
+				file = buffer.detachFile();
+				retireIfEmpty(key, buffer);
 			} finally {
 				buffer.lock.unlock();
 			}
 			if (drained != null) {
-				writeNow(topic, drained);
+				flushed(reason);
+				dispatch(key, drained);
+			}
+			if (file != null) {
+				flushed(reason);
+				commit(key, file);
+			}
+		});
+	}
+
+	/**
+	 * Runs one flush task per buffer and waits for all of them, so a cycle takes about as long as its
+	 * slowest buffer when {@code app.batch.flushConcurrency} allows parallel flushes. Each buffer gets a
+	 * single task per cycle and cycles never overlap, so a buffer is never flushed by two tasks at once.
+	 * A failure is logged without holding up the other buffers; its records stay unacknowledged.
+	 */
+	private void forEachBuffer(FlushReason reason, BiConsumer<BufferKey, BatchBuffer> flush) {
+		flushCycle.lock();
+		try {
+			long started = System.nanoTime();
+			List<Map.Entry<BufferKey, Future<?>>> pending = new ArrayList<>();
+			for (Map.Entry<BufferKey, BatchBuffer> entry : buffers.entrySet()) {
+				BufferKey key = entry.getKey();
+				BatchBuffer buffer = entry.getValue();
+				Runnable task = () -> flushSafely(key, () -> flush.accept(key, buffer));
+				if (flushExecutor == null) {
+					task.run();
+				} else {
+					pending.add(Map.entry(key, flushExecutor.submit(task)));
+				}
+			}
+			for (Map.Entry<BufferKey, Future<?>> entry : pending) {
+				try {
+					entry.getValue().get();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				} catch (ExecutionException ex) {
+					log.error("Flushing buffer {} failed", entry.getKey(), ex.getCause());
+				}
 			}
+			flushCycleTime(reason).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+		} finally {
+			flushCycle.unlock();
 		}
 	}
 
-	private void writeNow(String topic, DecodedAvro decoded) {
-		WriteTarget target = resolver.resolve(topic);
-		if (target.type() == TargetType.LOCAL) {
-			localWriter.write(decoded, target.localPath());
+	/**
+	 * Unmaps a buffer left empty by a flush; the caller holds its lock. Buffers for past output partitions
+	 * (e.g. yesterday's date) would otherwise stay mapped forever, and without a flush interval no sweep
+	 * would ever find them. Appenders already waiting on the lock see the flag and map a fresh buffer.
+	 */
+	private void retireIfEmpty(BufferKey key, BatchBuffer buffer) {
+		if (buffer.isEmpty()) {
+			buffer.retired = true;
+			buffers.remove(key, buffer);
+		}
+	}
+
+	private static void flushSafely(BufferKey key, Runnable flush) {
+		try {
+			flush.run();
+		} catch (RuntimeException ex) {
+			log.error("Flushing buffer {} failed", key, ex);
+		}
+	}
+
+	private Timer flushCycleTime(FlushReason reason) {
+		return Timer.builder("sink.flush.cycle.time")
+				.description("Time to flush every buffer on an interval tick or at shutdown")
+				.tag("reason", reason.tag())
+				.register(meterRegistry);
+	}
+
+	private void appendToSpill(BufferKey key, SpillFile spill, List<GenericRecord> records) {
+		try {
+			spill.append(records);
+		} catch (ParquetWriteException ex) {
+			// Records already spilled, and acknowledged into this buffer, can no longer be read back.
+			if (spill.failed()) {
+				stopIntake(key, ex);
+			}
+			throw ex;
+		}
+	}
+
+	private void dispatch(BufferKey key, SealedBatch sealed) {
+		memoryBudget.seal(sealed.heapBytes());
+		uploadStage.submit(() -> writeNow(key, sealed));
+	}
+
+	private void commit(BufferKey key, StreamingParquetFile file) {
+		uploadStage.submit(() -> {
+			// Excludes the footer, which is only written on close.
+			long fileBytes = file.dataSize();
+			try {
+				file.commit();
+			} catch (RuntimeException ex) {
+				// The records only existed in the open Parquet writer, so they cannot be written again.
+				writeFailures(key.topic()).increment();
+				stopIntake(key, ex);
+				return;
+			}
+			fileSize(key.topic()).record(fileBytes);
+		});
+	}
+
+	private void writeNow(BufferKey key, SealedBatch sealed) {
+		long started = System.nanoTime();
+		WriteTarget target;
+		long fileBytes;
+		try {
+			target = resolver.resolve(key.topic(), key.outputPartition());
+			fileBytes = writeWithRetries(key, sealed, target);
+		} catch (RuntimeException ex) {
+			stopIntake(key, ex);
 			return;
+		} finally {
+			sealed.discard();
+			memoryBudget.release(sealed.heapBytes());
+		}
+		Timer.builder("sink.parquet.write.time")
+				.description("Time to encode a sealed batch into a Parquet file, including S3 requests made while writing")
+				.tag("destination", target.type().name().toLowerCase(Locale.ROOT))
+				.register(meterRegistry)
+				.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+		fileSize(key.topic()).record(fileBytes);
+		sealed.acks().forEach(PendingAck::release);
+		compressionStats(key).observe(sealed.estimatedBytes(), fileBytes);
+	}
+
+	/**
+	 * Writes the batch, retrying up to {@code app.upload.maxAttempts} times with exponential backoff. A sealed
+	 * batch keeps all of its records, on the heap or in its spill file, so every attempt writes a new file
+	 * from the start; a failed attempt leaves no partial file behind.
+	 */
+	private long writeWithRetries(BufferKey key, SealedBatch sealed, WriteTarget target) {
+		int maxAttempts = Math.max(upload.getMaxAttempts(), 1);
+		Duration backoff = upload.getRetryBackoff();
+		for (int attempt = 1;; attempt++) {
+			try {
+				return writeOnce(sealed, target);
+			} catch (RuntimeException ex) {
+				writeFailures(key.topic()).increment();
+				if (attempt >= maxAttempts) {
+					throw ex;
+				}
+				log.warn("Writing buffer {} failed (attempt {} of {}), retrying in {}", key, attempt, maxAttempts,
+						backoff, ex);
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw ex;
+				}
+				Duration doubled = backoff.multipliedBy(2);
+				backoff = doubled.compareTo(upload.getRetryMaxBackoff()) > 0 ? upload.getRetryMaxBackoff() : doubled;
+			}
+		}
+	}
+
+	private long writeOnce(SealedBatch sealed, WriteTarget target) {
+		if (target.type() == TargetType.LOCAL) {
+			Path written = localWriter.write(sealed.schema(), sealed.records(), target.localPath(),
+					target.parquet());
+			return sizeOf(written);
+		}
+		return s3Writer.write(sealed.schema(), sealed.records(), target.bucket(), target.key(), target.parquet());
+	}
+
+	/**
+	 * Gives up on a write. Its acknowledgements are never released, so no offset past its records is
+	 * committed, and consumption stops so that those records are redelivered rather than skipped.
+	 */
+	private void stopIntake(BufferKey key, RuntimeException ex) {
+		log.error("Writing buffer {} failed, stopping consumption so its records are redelivered", key, ex);
+		intake.stop();
+	}
+
+	private Counter writeFailures(String topic) {
+		return Counter.builder("sink.parquet.write.failures")
+				.description("Failed Parquet file writes and commits, including attempts that are retried")
+				.tag("topic", topic)
+				.register(meterRegistry);
+	}
+
+	private DistributionSummary fileSize(String topic) {
+		return DistributionSummary.builder("sink.parquet.file.size")
+				.description("Size of written Parquet files")
+				.baseUnit("bytes")
+				.tag("topic", topic)
+				.register(meterRegistry);
+	}
+
+	private void flushed(FlushReason reason) {
+		flushes.get(reason).increment();
+	}
+
+	private BatchBuffer newBuffer(BufferKey key) {
+		String topic = key.topic();
+		int partition = key.partition();
+		// Registering is idempotent; buffers for later output partitions reuse the same gauges.
+		Gauge.builder("sink.buffer.records", this,
+				router -> router.buffered(topic, partition, buffer -> buffer.recordCount()
+						+ (buffer.file != null ? buffer.file.recordCount() : 0)))
+				.description("Records buffered or written to open files, per Kafka partition")
+				.tags("topic", topic, "partition", Integer.toString(partition))
+				.register(meterRegistry);
+		Gauge.builder("sink.buffer.bytes", this,
+				router -> router.buffered(topic, partition, buffer -> buffer.bufferedBytes))
+				.description("Estimated bytes of records waiting in buffered mode, per Kafka partition")
+				.baseUnit("bytes")
+				.tags("topic", topic, "partition", Integer.toString(partition))
+				.register(meterRegistry);
+		Gauge.builder("sink.buffer.spilled.bytes", this,
+				router -> router.buffered(topic, partition, buffer -> {
+					SpillFile spill = buffer.spill;
+					return spill != null ? spill.sizeOnDisk() : 0;
+				}))
+				.description("Bytes of buffered records spilled to local disk, per Kafka partition")
+				.baseUnit("bytes")
+				.tags("topic", topic, "partition", Integer.toString(partition))
+				.register(meterRegistry);
+		return new BatchBuffer();
+	}
+
+	private double buffered(String topic, int partition, ToLongFunction<BatchBuffer> size) {
+		long total = 0;
+		for (Map.Entry<BufferKey, BatchBuffer> entry : buffers.entrySet()) {
+			BufferKey key = entry.getKey();
+			if (key.partition() == partition && key.topic().equals(topic)) {
+				total += size.applyAsLong(entry.getValue());
+			}
+		}
+		return total;
+	}
+
+	private CompressionStats compressionStats(BufferKey key) {
+		return compression.computeIfAbsent(key.topic(), ignored -> new CompressionStats());
+	}
+
+	private static long sizeOf(Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException ex) {
+			return 0;
 		}
-		s3Writer.write(decoded, target.bucket(), target.key());
 	}
 
 	private static class BatchBuffer {
 		private final ReentrantLock lock = new ReentrantLock();
 		private Schema schema;
-		private final List<GenericRecord> records = new ArrayList<>();
+		// Active segment. drain() hands the list itself to the sealed batch and starts a new one, so the
+		// lock is only held for the swap rather than for a copy of every buffered record.
+		private volatile List<GenericRecord> records = new ArrayList<>();
+		private List<PendingAck> acks = new ArrayList<>();
+		// Volatile so the buffer gauges can read them without taking the lock.
+		private volatile long bufferedBytes;
+		// Part of bufferedBytes held on the heap and reserved from the memory budget. Volatile so memory
+		// relief can rank buffers without taking their locks.
+		private volatile long heapBytes;
 		private Instant lastAppend;
+		private volatile StreamingParquetFile file;
+		private Instant fileOpenedAt;
+		private boolean retired;
+		// Overflow past app.batch.spillThreshold; every record appended after it opens goes here.
+		private volatile SpillFile spill;
+
+		private long recordCount() {
+			SpillFile spilled = spill;
+			return records.size() + (spilled != null ? spilled.recordCount() : 0);
+		}
 
-		private DecodedAvro drain() {
-			if (records.isEmpty() || schema == null) {
+		private SealedBatch drain() {
+			if ((records.isEmpty() && spill == null) || schema == null) {
 				return null;
 			}
-			List<GenericRecord> snapshot = List.copyOf(records);
-			records.clear();
+			List<GenericRecord> segment = records;
+			List<PendingAck> segmentAcks = acks;
+			SpillFile spilled = spill;
+			if (spilled != null) {
+				spilled.finish();
+			}
+			SealedBatch sealed = new SealedBatch(
+					new DecodedAvro(schema, Collections.unmodifiableList(segment)), spilled, bufferedBytes,
+					heapBytes, Collections.unmodifiableList(segmentAcks));
+			// Sized like the last segment, since a partition's batches tend to fill the same way. A buffer
+			// left empty is retired, so this pays off when the same append goes on adding records.
+			records = new ArrayList<>(segment.size());
+			acks = new ArrayList<>(segmentAcks.size());
+			spill = null;
+			bufferedBytes = 0;
+			heapBytes = 0;
 			lastAppend = null;
-			return new DecodedAvro(schema, snapshot);
+			return sealed;
+		}
+
+		private StreamingParquetFile detachFile() {
+			StreamingParquetFile detached = file;
+			file = null;
+			fileOpenedAt = null;
+			lastAppend = null;
+			return detached;
+		}
+
+		private boolean isEmpty() {
+			return records.isEmpty() && spill == null && file == null;
+		}
+	}
+
+	private record HeapUsage(BufferKey key, BatchBuffer buffer, long heapBytes) {
+	}
+
+	private enum FlushReason {
+		SIZE,
+		INTERVAL,
+		SCHEMA_CHANGE,
+		MEMORY,
+		FORCED,
+		SHUTDOWN;
+
+		private String tag() {
+			return name().toLowerCase(Locale.ROOT).replace('_', '-');
+		}
+	}
+
+	private static class CompressionStats {
+		// Parquet bytes per estimated record byte, learned from previously written files.
+		private volatile double ratio = 1.0;
+
+		private void observe(long estimatedBytes, long fileBytes) {
+			if (estimatedBytes <= 0 || fileBytes <= 0) {
+				return;
+			}
+			double observed = (double) fileBytes / estimatedBytes;
+			ratio = ratio * 0.5 + observed * 0.5;
 		}
 	}
 }
@@ -3,9 +3,13 @@ package com.example.kafka.s3.sink.avro;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.junit.jupiter.api.Test;
 
@@ -28,6 +32,37 @@ class AvroDecoderTest {
 		assertThat(decoded.records().get(0).get("id")).isEqualTo(42);
 	}
 
+	@Test
+	void reusesCachedSchemaForPayloadsWithTheSameHeader() {
+		Schema schema = AvroTestData.sampleSchema();
+		byte[] first = AvroTestData.toContainerBytes(schema, List.of(AvroTestData.sampleRecord(schema, 1, "a")));
+		byte[] second = AvroTestData.toContainerBytes(schema, List.of(
+				AvroTestData.sampleRecord(schema, 2, "b"), AvroTestData.sampleRecord(schema, 3, "c")));
+
+		DecodedAvro firstDecoded = decoder.decode(first);
+		DecodedAvro secondDecoded = decoder.decode(second);
+
+		assertThat(secondDecoded.schema()).isSameAs(firstDecoded.schema());
+		assertThat(secondDecoded.records()).extracting(record -> record.get("id")).containsExactly(2, 3);
+		assertThat(secondDecoded.records().get(0)).isNotSameAs(secondDecoded.records().get(1));
+	}
+
+	@Test
+	void decodesCompressedAvroContainerPayload() throws Exception {
+		Schema schema = AvroTestData.sampleSchema();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema))) {
+			writer.setCodec(CodecFactory.deflateCodec(6));
+			writer.create(schema, outputStream);
+			writer.append(AvroTestData.sampleRecord(schema, 7, "deflated"));
+		}
+
+		DecodedAvro decoded = decoder.decode(outputStream.toByteArray());
+
+		assertThat(decoded.records()).hasSize(1);
+		assertThat(decoded.records().get(0).get("id")).isEqualTo(7);
+	}
+
 	@Test
 	void rejectsInvalidAvroPayload() {
 		byte[] payload = "not-avro".getBytes();
@@ -0,0 +1,72 @@
+package com.example.kafka.s3.sink.avro;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+
+class CompositeAvroDecoderTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void decodesSingleObjectPayloadOnceSchemaWasSeenInContainer() throws Exception {
+		CompositeAvroDecoder decoder = newDecoder(new AppProperties());
+		Schema schema = AvroTestData.sampleSchema();
+		byte[] singleObject = singleObject(schema, AvroTestData.sampleRecord(schema, 5, "compact"));
+
+		assertThatThrownBy(() -> decoder.decode(singleObject))
+				.isInstanceOf(AvroDecodingException.class)
+				.hasMessageContaining("Unknown schema fingerprint");
+
+		DecodedAvro container = decoder.decode(
+				AvroTestData.toContainerBytes(schema, List.of(AvroTestData.sampleRecord(schema, 4, "ocf"))));
+		DecodedAvro decoded = decoder.decode(singleObject);
+
+		assertThat(decoded.schema()).isSameAs(container.schema());
+		assertThat(decoded.records()).hasSize(1);
+		assertThat(decoded.records().get(0).get("id")).isEqualTo(5);
+	}
+
+	@Test
+	void resolvesSingleObjectSchemaFromConfiguredLocation() throws Exception {
+		Schema schema = AvroTestData.sampleSchema();
+		Path schemaFile = Files.writeString(tempDir.resolve("SampleEvent.avsc"), schema.toString());
+		AppProperties properties = new AppProperties();
+		properties.getAvro().setSchemaLocations(List.of(schemaFile.toUri().toString()));
+		CompositeAvroDecoder decoder = newDecoder(properties);
+
+		DecodedAvro decoded = decoder.decode(singleObject(schema, AvroTestData.sampleRecord(schema, 8, "preloaded")));
+
+		assertThat(decoded.schema().getName()).isEqualTo("SampleEvent");
+		assertThat(decoded.records().get(0).get("payload").toString()).isEqualTo("preloaded");
+	}
+
+	private static CompositeAvroDecoder newDecoder(AppProperties properties) {
+		SchemaCache schemaCache = new SchemaCache(properties);
+		return new CompositeAvroDecoder(new AvroDecoder(), new SingleObjectAvroDecoder(schemaCache), schemaCache,
+				Optional.empty());
+	}
+
+	private static byte[] singleObject(Schema schema, GenericRecord record) throws Exception {
+		ByteBuffer buffer = new BinaryMessageEncoder<GenericRecord>(GenericData.get(), schema).encode(record);
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+}
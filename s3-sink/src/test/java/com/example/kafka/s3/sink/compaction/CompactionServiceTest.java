@@ -0,0 +1,169 @@
+package com.example.kafka.s3.sink.compaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.config.TargetType;
+import com.example.kafka.s3.sink.mapping.ParquetPathBuilder;
+import com.example.kafka.s3.sink.mapping.TopicMappingResolver;
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CompactionServiceTest {
+
+	private static final Instant NOW = Instant.parse("2024-01-02T00:00:00Z");
+
+	@TempDir
+	Path tempDir;
+
+	private final ParquetConverter converter = new ParquetConverter(new Configuration());
+
+	@Test
+	void mergesSmallFilesAndRewritesOlderSchemas() throws Exception {
+		Path partition = tempDir.resolve("topic=events/date=2024-01-01");
+		Schema schema = AvroTestData.sampleSchema();
+		Schema evolved = evolvedSchema();
+		for (int id = 1; id <= 3; id++) {
+			write(partition, id, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, id, "v1"))));
+		}
+		GenericRecord newest = AvroTestData.sampleRecord(evolved, 4, "v2");
+		newest.put("source", "api");
+		write(partition, 4, new DecodedAvro(evolved, List.of(newest)));
+
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		CompactionService service = newService(meterRegistry);
+		try {
+			service.compactAll();
+		} finally {
+			service.shutdown();
+		}
+
+		List<Path> files = parquetFiles(partition);
+		assertThat(files).hasSize(1);
+		List<GenericRecord> records = read(files.getFirst());
+		assertThat(records).extracting(record -> record.get("id")).containsExactly(1, 2, 3, 4);
+		assertThat(records).extracting(record -> String.valueOf(record.get("source")))
+				.containsExactly("unknown", "unknown", "unknown", "api");
+		assertThat(meterRegistry.get("sink.compaction.files").tag("role", "input").counter().count()).isEqualTo(4);
+	}
+
+	@Test
+	void rollsForwardAnInterruptedSwap() throws Exception {
+		Path partition = tempDir.resolve("topic=events/date=2024-01-01");
+		Schema schema = AvroTestData.sampleSchema();
+		Path original = write(partition, 1, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "a"))));
+		converter.write(new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "a"))),
+				partition.resolve(".merged.parquet.compacting"));
+		LocalPartitionStore store = new LocalPartitionStore(tempDir.resolve("topic=events"));
+		store.writeManifest("date=2024-01-01",
+				new CompactionManifest(List.of("merged.parquet"), List.of(original.getFileName().toString())));
+
+		CompactionService service = newService(new SimpleMeterRegistry());
+		try {
+			service.compactAll();
+		} finally {
+			service.shutdown();
+		}
+
+		try (var entries = Files.list(partition)) {
+			assertThat(entries).containsExactlyInAnyOrder(partition.resolve("merged.parquet"),
+					partition.resolve(PartitionStore.MANIFEST_NAME));
+		}
+	}
+
+	@Test
+	void readersSeeTheSwapOnceItsManifestIsWritten() throws Exception {
+		Path partition = tempDir.resolve("topic=events/date=2024-01-01");
+		Schema schema = AvroTestData.sampleSchema();
+		Path first = write(partition, 1, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "a"))));
+		Path second = write(partition, 2, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 2, "b"))));
+		Path staged = partition.resolve(".merged.parquet.compacting");
+		converter.write(new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "a"),
+				AvroTestData.sampleRecord(schema, 2, "b"))), staged);
+		LocalPartitionStore store = new LocalPartitionStore(tempDir.resolve("topic=events"));
+
+		assertThat(store.readableFiles("date=2024-01-01"))
+				.containsExactlyInAnyOrder(first.toString(), second.toString());
+
+		store.writeManifest("date=2024-01-01", new CompactionManifest(List.of("merged.parquet"),
+				List.of(first.getFileName().toString(), second.getFileName().toString())));
+
+		assertThat(store.readableFiles("date=2024-01-01")).containsExactly(staged.toString());
+
+		store.publish("date=2024-01-01", "merged.parquet");
+
+		assertThat(store.readableFiles("date=2024-01-01"))
+				.containsExactly(partition.resolve("merged.parquet").toString());
+	}
+
+	private CompactionService newService(SimpleMeterRegistry meterRegistry) {
+		AppProperties properties = new AppProperties();
+		properties.getLocal().setBaseDir(tempDir);
+		AppProperties.TopicMapping mapping = new AppProperties.TopicMapping();
+		mapping.setTopic("events");
+		mapping.setDestination(TargetType.LOCAL);
+		properties.setMappings(List.of(mapping));
+		properties.getCompaction().setMinFiles(3);
+		Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+		TopicMappingResolver resolver = new TopicMappingResolver(properties, new ParquetPathBuilder(clock));
+		return new CompactionService(properties, resolver, null, converter, new Configuration(), clock, meterRegistry);
+	}
+
+	private Path write(Path partition, int order, DecodedAvro decoded) throws Exception {
+		Files.createDirectories(partition);
+		Path file = partition.resolve("file-" + order + ".parquet");
+		converter.write(decoded, file);
+		Files.setLastModifiedTime(file, FileTime.from(NOW.minus(Duration.ofHours(10 - order))));
+		return file;
+	}
+
+	private static Schema evolvedSchema() {
+		Schema schema = AvroTestData.sampleSchema();
+		List<Schema.Field> fields = new ArrayList<>();
+		schema.getFields().forEach(field -> fields.add(new Schema.Field(field, field.schema())));
+		fields.add(new Schema.Field("source", Schema.create(Schema.Type.STRING), null, "unknown"));
+		return Schema.createRecord(schema.getName(), null, schema.getNamespace(), false, fields);
+	}
+
+	private static List<Path> parquetFiles(Path directory) throws Exception {
+		try (var entries = Files.list(directory)) {
+			return entries.filter(path -> path.getFileName().toString().endsWith(".parquet")).toList();
+		}
+	}
+
+	private static List<GenericRecord> read(Path file) throws Exception {
+		List<GenericRecord> records = new ArrayList<>();
+		org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(file.toUri());
+		try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(hadoopPath)
+				.withDataModel(GenericData.get())
+				.build()) {
+			GenericRecord record;
+			while ((record = reader.read()) != null) {
+				records.add(record);
+			}
+		}
+		return records;
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.kafka.s3.sink.compaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.junit.jupiter.api.Test;
+
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+import com.example.kafka.s3.sink.testutil.InMemoryS3Client;
+import com.example.kafka.s3.sink.writer.S3MultipartOutputFile;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class S3InputFileTest {
+
+	private static final String BUCKET = "bucket";
+	private static final String KEY = "topic=events/date=2024-01-01/a.parquet";
+
+	private final InMemoryS3Client s3Client = new InMemoryS3Client();
+	private final ParquetConverter converter = new ParquetConverter(new Configuration());
+
+	@Test
+	void readsTheFooterWithoutFetchingTheWholeObject() throws Exception {
+		long length = upload(4_000);
+		S3InputFile input = new S3InputFile(s3Client, BUCKET, KEY, length);
+
+		ParquetFileMerger.footer(input);
+		ParquetFileMerger.footer(input);
+
+		assertThat(length).isGreaterThan(2L * S3InputFile.TAIL_SIZE);
+		assertThat(s3Client.fetchedBytes()).isEqualTo(S3InputFile.TAIL_SIZE);
+	}
+
+	@Test
+	void readsEveryRecordThroughRangedReads() throws Exception {
+		long length = upload(4_000);
+		S3InputFile input = new S3InputFile(s3Client, BUCKET, KEY, length);
+
+		List<Object> ids = new ArrayList<>();
+		try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(input)
+				.withDataModel(GenericData.get())
+				.build()) {
+			GenericRecord record;
+			while ((record = reader.read()) != null) {
+				ids.add(record.get("id"));
+			}
+		}
+
+		assertThat(ids).hasSize(4_000).startsWith(0, 1, 2).endsWith(3_999);
+	}
+
+	private long upload(int count) throws Exception {
+		Schema schema = AvroTestData.sampleSchema();
+		Random random = new Random(42);
+		S3MultipartOutputFile outputFile = new S3MultipartOutputFile(s3Client, BUCKET, KEY, 5 * 1024 * 1024,
+				new SimpleMeterRegistry());
+		try (ParquetWriter<GenericRecord> writer = converter.open(schema, outputFile)) {
+			for (int i = 0; i < count; i++) {
+				byte[] payload = new byte[64];
+				random.nextBytes(payload);
+				writer.write(AvroTestData.sampleRecord(schema, i, HexFormat.of().formatHex(payload)));
+			}
+		}
+		return s3Client.object(BUCKET, KEY).length;
+	}
+}
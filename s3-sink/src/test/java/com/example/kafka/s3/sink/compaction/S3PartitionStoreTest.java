@@ -0,0 +1,51 @@
+package com.example.kafka.s3.sink.compaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.kafka.s3.sink.testutil.InMemoryS3Client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+class S3PartitionStoreTest {
+
+	private static final String BUCKET = "bucket";
+	private static final String PREFIX = "topic=events/";
+
+	private final InMemoryS3Client s3Client = new InMemoryS3Client();
+	private final S3PartitionStore store = new S3PartitionStore(s3Client, BUCKET, PREFIX, 5 * 1024 * 1024,
+			new SimpleMeterRegistry());
+
+	@Test
+	void ignoresStagedOutputsWhenListingPartitions() throws Exception {
+		put("date=2024-01-01/a.parquet");
+		put("date=2024-01-01/_compaction/merged.parquet");
+		put("date=2024-01-02/.spark-staging/b.parquet");
+		put("date=2024-01-02/_compaction.manifest");
+
+		assertThat(store.partitions()).containsExactly("date=2024-01-01", "date=2024-01-02");
+	}
+
+	@Test
+	void failsWhenAnObjectIsNotDeleted() {
+		put("date=2024-01-01/a.parquet");
+		put("date=2024-01-01/b.parquet");
+		s3Client.failDelete(PREFIX + "date=2024-01-01/b.parquet");
+
+		assertThatThrownBy(() -> store.delete("date=2024-01-01", List.of("a.parquet", "b.parquet")))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("b.parquet");
+	}
+
+	private void put(String key) {
+		s3Client.putObject(PutObjectRequest.builder().bucket(BUCKET).key(PREFIX + key).build(),
+				RequestBody.fromBytes(new byte[] { 1 }));
+	}
+}
@@ -1,16 +1,19 @@
 package com.example.kafka.s3.sink.mapping;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
 import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.config.PartitionGranularity;
 import com.example.kafka.s3.sink.config.TargetType;
 import com.example.kafka.s3.sink.writer.WriteTarget;
 
@@ -55,6 +58,58 @@ class TopicMappingResolverTest {
 		assertThat(target.key()).startsWith("prefix/topic=events/date=2024-01-01/");
 	}
 
+	@Test
+	void formatsConfiguredGranularityInMappingZone() {
+		AppProperties properties = new AppProperties();
+		AppProperties.TopicMapping mapping = new AppProperties.TopicMapping();
+		mapping.setTopic("events");
+		mapping.getPartitioning().setGranularity(PartitionGranularity.MINUTE);
+		mapping.getPartitioning().setZone(ZoneId.of("America/New_York"));
+		properties.setMappings(List.of(mapping));
+
+		TopicMappingResolver resolver = new TopicMappingResolver(properties, new ParquetPathBuilder(fixedClock()));
+
+		assertThat(resolver.partitionPath("events", Instant.parse("2024-01-01T03:07:00Z")))
+				.isEqualTo("date=2023-12-31/hour=22/minute=07");
+		assertThat(resolver.partitionPath("other", Instant.parse("2024-01-01T03:07:00Z")))
+				.isEqualTo("date=2024-01-01");
+	}
+
+	@Test
+	void prefersExactThenLongestPrefixThenPattern() {
+		AppProperties properties = new AppProperties();
+		properties.getLocal().setBaseDir(Path.of("/tmp/base"));
+		properties.setMappings(List.of(
+				localMapping(null, "eu\\..*", "pattern"),
+				localMapping("orders-*", null, "orders"),
+				localMapping("orders-eu-*", null, "orders-eu"),
+				localMapping("orders-eu-archive", null, "archive")));
+
+		TopicMappingResolver resolver = new TopicMappingResolver(properties, new ParquetPathBuilder(fixedClock()));
+
+		assertThat(resolver.resolveTopicRoot("orders-eu-archive").localPath())
+				.isEqualTo(Path.of("/tmp/base/archive/topic=orders-eu-archive"));
+		assertThat(resolver.resolveTopicRoot("orders-eu-live").localPath())
+				.isEqualTo(Path.of("/tmp/base/orders-eu/topic=orders-eu-live"));
+		assertThat(resolver.resolveTopicRoot("orders-us").localPath())
+				.isEqualTo(Path.of("/tmp/base/orders/topic=orders-us"));
+		assertThat(resolver.resolveTopicRoot("eu.payments").localPath())
+				.isEqualTo(Path.of("/tmp/base/pattern/topic=eu.payments"));
+		assertThatThrownBy(() -> resolver.resolve("payments"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("payments");
+		assertThat(resolver.knownTopics())
+				.containsExactlyInAnyOrder("orders-eu-archive", "orders-eu-live", "orders-us", "eu.payments");
+	}
+
+	private static AppProperties.TopicMapping localMapping(String topic, String topicPattern, String directory) {
+		AppProperties.TopicMapping mapping = new AppProperties.TopicMapping();
+		mapping.setTopic(topic);
+		mapping.setTopicPattern(topicPattern);
+		mapping.setDirectory(directory);
+		return mapping;
+	}
+
 	private Clock fixedClock() {
 		return Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
 	}
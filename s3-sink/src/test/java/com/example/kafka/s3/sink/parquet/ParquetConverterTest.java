@@ -10,11 +10,18 @@ import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
 import com.example.kafka.s3.sink.testutil.AvroTestData;
 
 class ParquetConverterTest {
@@ -41,4 +48,48 @@ class ParquetConverterTest {
 			assertThat(loaded.get("payload").toString()).isEqualTo("payload");
 		}
 	}
+
+	@Test
+	void writesLocalFilesWithoutChecksumSideFiles() throws Exception {
+		Schema schema = AvroTestData.sampleSchema();
+		DecodedAvro decoded = new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 3, "nio")));
+		Path outputPath = tempDir.resolve("nio.parquet");
+
+		new ParquetConverter(new Configuration()).write(decoded, outputPath);
+
+		try (var files = Files.list(tempDir)) {
+			assertThat(files).containsExactly(outputPath);
+		}
+		org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(outputPath.toUri());
+		try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(hadoopPath).build()) {
+			assertThat(reader.read().get("id")).isEqualTo(3);
+			assertThat(reader.read()).isNull();
+		}
+	}
+
+	@Test
+	void appliesPerTopicWriterOptions() throws Exception {
+		Schema schema = AvroTestData.sampleSchema();
+		DecodedAvro decoded = new DecodedAvro(schema, List.of(
+				AvroTestData.sampleRecord(schema, 1, "first"), AvroTestData.sampleRecord(schema, 2, "second")));
+		Path outputPath = tempDir.resolve("tuned.parquet");
+		AppProperties.ParquetProperties options = new AppProperties.ParquetProperties();
+		options.setCodec(CompressionCodecName.ZSTD);
+		options.setCompressionLevel(9);
+		options.setDictionary(false);
+		options.setBloomFilterColumns(List.of("id"));
+
+		new ParquetConverter(new Configuration()).write(decoded, outputPath, options);
+
+		org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(outputPath.toUri());
+		try (ParquetFileReader reader = ParquetFileReader.open(
+				HadoopInputFile.fromPath(hadoopPath, new Configuration()))) {
+			BlockMetaData rowGroup = reader.getFooter().getBlocks().get(0);
+			ColumnChunkMetaData id = rowGroup.getColumns().get(0);
+			assertThat(id.getCodec()).isEqualTo(CompressionCodecName.ZSTD);
+			assertThat(id.getEncodings()).doesNotContain(Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+			assertThat(reader.readBloomFilter(id)).isNotNull();
+			assertThat(reader.readBloomFilter(rowGroup.getColumns().get(1))).isNull();
+		}
+	}
 }
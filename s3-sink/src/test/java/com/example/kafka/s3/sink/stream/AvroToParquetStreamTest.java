@@ -0,0 +1,139 @@
+package com.example.kafka.s3.sink.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.example.kafka.s3.sink.avro.AvroDecoder;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.config.TargetType;
+import com.example.kafka.s3.sink.mapping.ParquetPathBuilder;
+import com.example.kafka.s3.sink.mapping.TopicMappingResolver;
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+import com.example.kafka.s3.sink.writer.IntakeControl;
+import com.example.kafka.s3.sink.writer.LocalParquetWriter;
+import com.example.kafka.s3.sink.writer.MemoryBudget;
+import com.example.kafka.s3.sink.writer.S3ParquetWriter;
+import com.example.kafka.s3.sink.writer.UploadStage;
+import com.example.kafka.s3.sink.writer.WriterRouter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AvroToParquetStreamTest {
+
+	private static final String TOPIC = "batch-topic";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void reportsTheIndexOfAnUndecodablePayloadAfterWritingThoseBeforeIt() throws Exception {
+		AppProperties properties = localProperties();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WriterRouter router = newRouter(properties, meterRegistry);
+		DecodeStage decoder = new DecodeStage(new AvroDecoder(), properties, meterRegistry);
+		Consumer<Message<List<byte[]>>> consumer = new AvroToParquetStream()
+				.avroToParquetBatch(decoder, router, properties, meterRegistry);
+
+		Schema schema = AvroTestData.sampleSchema();
+		AtomicInteger acknowledged = new AtomicInteger();
+		Message<List<byte[]>> poll = MessageBuilder.withPayload(List.of(
+						AvroTestData.toContainerBytes(schema, List.of(AvroTestData.sampleRecord(schema, 1, "ok"))),
+						"not-avro".getBytes(),
+						AvroTestData.toContainerBytes(schema, List.of(AvroTestData.sampleRecord(schema, 3, "ok")))))
+				.setHeader(KafkaHeaders.RECEIVED_TOPIC, List.of(TOPIC, TOPIC, TOPIC))
+				.setHeader(KafkaHeaders.RECEIVED_PARTITION, List.of(0, 0, 0))
+				.setHeader(KafkaHeaders.ACKNOWLEDGMENT, (Acknowledgment) acknowledged::incrementAndGet)
+				.build();
+
+		BatchListenerFailedException failure = catchThrowableOfType(BatchListenerFailedException.class,
+				() -> consumer.accept(poll));
+
+		// The error handler commits the offset before index 1, so that record must already be written.
+		assertThat(failure.getIndex()).isEqualTo(1);
+		assertThat(parquetFiles()).hasSize(1);
+		assertThat(meterRegistry.get("sink.flush").tag("reason", "forced").counter().count()).isEqualTo(1.0);
+		// A batch acknowledgement would commit the failed record and the one after it too.
+		assertThat(acknowledged).hasValue(0);
+		router.shutdown();
+		decoder.shutdown();
+	}
+
+	@Test
+	void reportsTheIndexOfARecordFromAnUnmappedTopic() throws Exception {
+		AppProperties properties = localProperties();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WriterRouter router = newRouter(properties, meterRegistry);
+		DecodeStage decoder = new DecodeStage(new AvroDecoder(), properties, meterRegistry);
+		Consumer<Message<List<byte[]>>> consumer = new AvroToParquetStream()
+				.avroToParquetBatch(decoder, router, properties, meterRegistry);
+
+		Schema schema = AvroTestData.sampleSchema();
+		byte[] payload = AvroTestData.toContainerBytes(schema, List.of(AvroTestData.sampleRecord(schema, 1, "ok")));
+		Message<List<byte[]>> poll = MessageBuilder.withPayload(List.of(payload, payload, payload))
+				.setHeader(KafkaHeaders.RECEIVED_TOPIC, List.of(TOPIC, "unmapped-topic", TOPIC))
+				.setHeader(KafkaHeaders.RECEIVED_PARTITION, List.of(0, 0, 0))
+				.setHeader(KafkaHeaders.ACKNOWLEDGMENT, (Acknowledgment) () -> {
+				})
+				.build();
+
+		BatchListenerFailedException failure = catchThrowableOfType(BatchListenerFailedException.class,
+				() -> consumer.accept(poll));
+
+		assertThat(failure.getIndex()).isEqualTo(1);
+		assertThat(failure).hasMessageContaining("unmapped-topic");
+		assertThat(parquetFiles()).hasSize(1);
+		router.shutdown();
+		decoder.shutdown();
+	}
+
+	private AppProperties localProperties() {
+		AppProperties properties = new AppProperties();
+		properties.getLocal().setBaseDir(tempDir);
+		AppProperties.TopicMapping mapping = new AppProperties.TopicMapping();
+		mapping.setTopic(TOPIC);
+		mapping.setDestination(TargetType.LOCAL);
+		mapping.setDirectory("out");
+		properties.setMappings(List.of(mapping));
+		properties.getBatch().setMaxRecords(100);
+		return properties;
+	}
+
+	private static WriterRouter newRouter(AppProperties properties, SimpleMeterRegistry meterRegistry) {
+		Clock clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+		ParquetConverter converter = new ParquetConverter(new Configuration());
+		TopicMappingResolver resolver = new TopicMappingResolver(properties, new ParquetPathBuilder(clock));
+		return new WriterRouter(resolver, new LocalParquetWriter(converter),
+				new S3ParquetWriter(converter, null, properties, meterRegistry),
+				new UploadStage(properties, meterRegistry), properties,
+				new MemoryBudget(properties, IntakeControl.NONE, meterRegistry), IntakeControl.NONE, clock,
+				meterRegistry);
+	}
+
+	private List<Path> parquetFiles() throws Exception {
+		try (var stream = Files.walk(tempDir)) {
+			return stream
+					.filter(path -> path.toString().endsWith(".parquet"))
+					.toList();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.kafka.s3.sink.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+
+import com.example.kafka.s3.sink.avro.AvroDecoder;
+import com.example.kafka.s3.sink.avro.AvroDecodingException;
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DecodeStageTest {
+
+	@Test
+	void decodesPayloadsInParallelAndKeepsTheirOrder() {
+		AppProperties properties = new AppProperties();
+		properties.getDecode().setConcurrency(4);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		DecodeStage stage = new DecodeStage(new AvroDecoder(), properties, meterRegistry);
+
+		Schema schema = AvroTestData.sampleSchema();
+		List<byte[]> payloads = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			payloads.add(AvroTestData.toContainerBytes(schema, List.of(AvroTestData.sampleRecord(schema, i, "p"))));
+		}
+
+		try {
+			List<DecodedAvro> decoded = stage.decodeAll(payloads);
+
+			assertThat(decoded).extracting(result -> result.records().get(0).get("id"))
+					.containsExactlyElementsOf(IntStream.range(0, 50).boxed().toList());
+			assertThat(meterRegistry.get("sink.decode.queue.time").timer().count()).isEqualTo(50);
+			assertThat(meterRegistry.get("sink.decode.time").timer().count()).isEqualTo(50);
+		} finally {
+			stage.shutdown();
+		}
+	}
+
+	@Test
+	void propagatesDecodeFailures() {
+		AppProperties properties = new AppProperties();
+		properties.getDecode().setConcurrency(2);
+		properties.getDecode().setVirtualThreads(true);
+		DecodeStage stage = new DecodeStage(new AvroDecoder(), properties, new SimpleMeterRegistry());
+
+		Schema schema = AvroTestData.sampleSchema();
+		byte[] valid = AvroTestData.toContainerBytes(schema, List.of(AvroTestData.sampleRecord(schema, 1, "ok")));
+
+		try {
+			assertThatThrownBy(() -> stage.decodeAll(List.of(valid, "not-avro".getBytes(), valid)))
+					.isInstanceOf(AvroDecodingException.class);
+		} finally {
+			stage.shutdown();
+		}
+	}
+}
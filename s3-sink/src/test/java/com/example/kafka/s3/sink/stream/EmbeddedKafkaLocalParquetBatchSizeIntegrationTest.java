@@ -79,6 +79,8 @@ class EmbeddedKafkaLocalParquetBatchSizeIntegrationTest {
 			}
 			Thread.sleep(200);
 		}
+		throw new AssertionError("Expected " + expected + " Parquet files within " + timeout + " but found "
+				+ countParquetFiles(baseDir));
 	}
 
 	private int countParquetFiles(Path baseDir) throws Exception {
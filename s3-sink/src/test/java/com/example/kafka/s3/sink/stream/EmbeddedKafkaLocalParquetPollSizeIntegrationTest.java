@@ -0,0 +1,108 @@
+package com.example.kafka.s3.sink.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+
+/**
+ * A batch larger than {@code max.poll.records} must fill across several polls: the consumer keeps
+ * polling while records are buffered and commits their offsets once the file is written.
+ */
+@SpringBootTest
+@EmbeddedKafka(partitions = 1, topics = "local-parquet-poll-topic")
+@TestPropertySource(properties = {
+		"spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+		"spring.cloud.stream.kafka.binder.brokers=${spring.embedded.kafka.brokers}",
+		"spring.kafka.consumer.value-deserializer=org.apache.kafka.common.serialization.ByteArrayDeserializer",
+		"spring.kafka.producer.value-serializer=org.apache.kafka.common.serialization.ByteArraySerializer",
+		"spring.cloud.stream.kafka.bindings.avroToParquet-in-0.consumer.configuration.max.poll.records=2",
+		"app.source-topics=local-parquet-poll-topic",
+		"app.mappings[0].topic=local-parquet-poll-topic",
+		"app.mappings[0].destination=LOCAL",
+		"app.mappings[0].directory=out",
+		"app.batch.maxRecords=5",
+		"app.batch.flushInterval=PT0S"
+})
+class EmbeddedKafkaLocalParquetPollSizeIntegrationTest {
+
+	private static final String TOPIC = "local-parquet-poll-topic";
+	private static final String GROUP = "kafka-s3-sink";
+
+	@TempDir
+	static Path tempDir;
+
+	@Autowired
+	private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+	@Autowired
+	private EmbeddedKafkaBroker broker;
+
+	@DynamicPropertySource
+	static void registerProperties(DynamicPropertyRegistry registry) {
+		registry.add("app.local.baseDir", () -> tempDir.toString());
+	}
+
+	@Test
+	void fillsBatchAcrossPollsAndCommitsItsOffsets() throws Exception {
+		Schema schema = AvroTestData.sampleSchema();
+		for (int i = 1; i <= 5; i++) {
+			GenericRecord record = AvroTestData.sampleRecord(schema, i, "poll");
+			kafkaTemplate.send(TOPIC, AvroTestData.toContainerBytes(schema, List.of(record)))
+					.get(5, TimeUnit.SECONDS);
+		}
+
+		Instant deadline = Instant.now().plus(Duration.ofSeconds(20));
+		long committed = -1;
+		while (Instant.now().isBefore(deadline) && (countParquetFiles() < 1 || committed < 5)) {
+			Thread.sleep(200);
+			committed = committedOffset();
+		}
+
+		assertThat(countParquetFiles()).isEqualTo(1);
+		assertThat(committed).isEqualTo(5);
+	}
+
+	private long committedOffset() throws Exception {
+		try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+				broker.getBrokersAsString()))) {
+			Map<TopicPartition, OffsetAndMetadata> offsets = admin.listConsumerGroupOffsets(GROUP)
+					.partitionsToOffsetAndMetadata()
+					.get(5, TimeUnit.SECONDS);
+			OffsetAndMetadata offset = offsets.get(new TopicPartition(TOPIC, 0));
+			return offset != null ? offset.offset() : -1;
+		}
+	}
+
+	private int countParquetFiles() throws Exception {
+		try (var stream = Files.walk(tempDir)) {
+			return (int) stream
+					.filter(path -> path.toString().endsWith(".parquet"))
+					.count();
+		}
+	}
+}
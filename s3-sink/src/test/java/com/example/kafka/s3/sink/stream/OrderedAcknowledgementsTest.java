@@ -0,0 +1,33 @@
+package com.example.kafka.s3.sink.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.kafka.s3.sink.writer.PendingAck;
+
+class OrderedAcknowledgementsTest {
+
+	@Test
+	void holdsLaterAcknowledgementsUntilEarlierBatchesComplete() {
+		OrderedAcknowledgements acknowledgements = new OrderedAcknowledgements();
+		List<String> acknowledged = new ArrayList<>();
+
+		PendingAck first = acknowledgements.next(() -> acknowledged.add("first"));
+		PendingAck second = acknowledgements.next(() -> acknowledged.add("second"));
+		PendingAck third = acknowledgements.next(() -> acknowledged.add("third"));
+
+		second.release();
+		third.release();
+		assertThat(acknowledged).isEmpty();
+		assertThat(acknowledgements.pendingCount()).isEqualTo(3);
+
+		first.release();
+
+		assertThat(acknowledged).containsExactly("first", "second", "third");
+		assertThat(acknowledgements.pendingCount()).isZero();
+	}
+}
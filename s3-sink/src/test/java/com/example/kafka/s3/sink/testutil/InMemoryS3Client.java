@@ -0,0 +1,233 @@
+package com.example.kafka.s3.sink.testutil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+/**
+ * In-process stand-in for the S3 operations used by the sink writers.
+ */
+public class InMemoryS3Client implements S3Client {
+
+	private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+	private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+	private final Set<String> abortedUploads = ConcurrentHashMap.newKeySet();
+	private final Set<String> failDeleteKeys = ConcurrentHashMap.newKeySet();
+	private volatile int failUploadPartNumber = -1;
+	private volatile int putCount;
+	private volatile int uploadedPartCount;
+	private volatile long fetchedBytes;
+
+	public byte[] object(String bucket, String key) {
+		return objects.get(bucket + "/" + key);
+	}
+
+	public Set<String> objectKeys() {
+		return objects.keySet();
+	}
+
+	public Set<String> abortedUploads() {
+		return abortedUploads;
+	}
+
+	public int pendingUploads() {
+		return uploads.size();
+	}
+
+	public int putCount() {
+		return putCount;
+	}
+
+	public int uploadedPartCount() {
+		return uploadedPartCount;
+	}
+
+	public long fetchedBytes() {
+		return fetchedBytes;
+	}
+
+	public void failUploadPart(int partNumber) {
+		this.failUploadPartNumber = partNumber;
+	}
+
+	public void failDelete(String key) {
+		failDeleteKeys.add(key);
+	}
+
+	@Override
+	public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+		objects.put(request.bucket() + "/" + request.key(), read(body));
+		putCount++;
+		return PutObjectResponse.builder().eTag(UUID.randomUUID().toString()).build();
+	}
+
+	@Override
+	public <ReturnT> ReturnT getObject(GetObjectRequest request,
+			ResponseTransformer<GetObjectResponse, ReturnT> responseTransformer) {
+		byte[] object = objects.get(request.bucket() + "/" + request.key());
+		if (object == null) {
+			throw NoSuchKeyException.builder().message("Unknown key " + request.key()).build();
+		}
+		int from = 0;
+		int to = object.length;
+		if (request.range() != null) {
+			String[] bounds = request.range().substring("bytes=".length()).split("-", -1);
+			from = Integer.parseInt(bounds[0]);
+			if (!bounds[1].isEmpty()) {
+				to = Math.min(object.length, Integer.parseInt(bounds[1]) + 1);
+			}
+		}
+		byte[] body = Arrays.copyOfRange(object, from, to);
+		fetchedBytes += body.length;
+		try {
+			return responseTransformer.transform(GetObjectResponse.builder().contentLength((long) body.length).build(),
+					AbortableInputStream.create(new ByteArrayInputStream(body)));
+		} catch (Exception ex) {
+			throw SdkClientException.create("Failed to transform " + request.key(), ex);
+		}
+	}
+
+	@Override
+	public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+		String uploadId = UUID.randomUUID().toString();
+		uploads.put(uploadId, new TreeMap<>());
+		return CreateMultipartUploadResponse.builder()
+				.bucket(request.bucket())
+				.key(request.key())
+				.uploadId(uploadId)
+				.build();
+	}
+
+	@Override
+	public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+		if (request.partNumber() == failUploadPartNumber) {
+			throw (S3Exception) S3Exception.builder().statusCode(500).message("Injected part failure").build();
+		}
+		Map<Integer, byte[]> parts = upload(request.uploadId());
+		parts.put(request.partNumber(), read(body));
+		uploadedPartCount++;
+		return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+	}
+
+	@Override
+	public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+		Map<Integer, byte[]> parts = upload(request.uploadId());
+		ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+		for (CompletedPart part : request.multipartUpload().parts()) {
+			assembled.writeBytes(parts.get(part.partNumber()));
+		}
+		uploads.remove(request.uploadId());
+		objects.put(request.bucket() + "/" + request.key(), assembled.toByteArray());
+		return CompleteMultipartUploadResponse.builder()
+				.bucket(request.bucket())
+				.key(request.key())
+				.build();
+	}
+
+	@Override
+	public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+		upload(request.uploadId());
+		uploads.remove(request.uploadId());
+		abortedUploads.add(request.uploadId());
+		return AbortMultipartUploadResponse.builder().build();
+	}
+
+	@Override
+	public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+		String bucketPrefix = request.bucket() + "/";
+		String prefix = request.prefix() != null ? request.prefix() : "";
+		List<S3Object> contents = new TreeMap<>(objects).entrySet().stream()
+				.filter(entry -> entry.getKey().startsWith(bucketPrefix + prefix))
+				.map(entry -> S3Object.builder()
+						.key(entry.getKey().substring(bucketPrefix.length()))
+						.size((long) entry.getValue().length)
+						.lastModified(Instant.EPOCH)
+						.build())
+				.toList();
+		return ListObjectsV2Response.builder().contents(contents).keyCount(contents.size()).isTruncated(false).build();
+	}
+
+	@Override
+	public ListObjectsV2Iterable listObjectsV2Paginator(ListObjectsV2Request request) {
+		return new ListObjectsV2Iterable(this, request);
+	}
+
+	@Override
+	public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+		List<S3Error> errors = new ArrayList<>();
+		for (ObjectIdentifier object : request.delete().objects()) {
+			if (failDeleteKeys.contains(object.key())) {
+				errors.add(S3Error.builder().key(object.key()).code("AccessDenied").message("Access Denied").build());
+			} else {
+				objects.remove(request.bucket() + "/" + object.key());
+			}
+		}
+		return DeleteObjectsResponse.builder().errors(errors).build();
+	}
+
+	@Override
+	public String serviceName() {
+		return SERVICE_NAME;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	private Map<Integer, byte[]> upload(String uploadId) {
+		Map<Integer, byte[]> parts = uploads.get(uploadId);
+		if (parts == null) {
+			throw NoSuchUploadException.builder().message("Unknown upload " + uploadId).build();
+		}
+		return parts;
+	}
+
+	private static byte[] read(RequestBody body) {
+		try (InputStream stream = body.contentStreamProvider().newStream()) {
+			return stream.readAllBytes();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
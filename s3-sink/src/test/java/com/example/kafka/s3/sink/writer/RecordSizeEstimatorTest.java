@@ -0,0 +1,32 @@
+package com.example.kafka.s3.sink.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.util.Utf8;
+import org.junit.jupiter.api.Test;
+
+class RecordSizeEstimatorTest {
+
+	@Test
+	void countsStringsInUtf8Bytes() {
+		Schema string = Schema.create(Schema.Type.STRING);
+		// 1 + 2 + 3 + 4 bytes: ASCII, Latin-1, BMP and a surrogate pair.
+		String text = "aé€😀";
+
+		assertThat(RecordSizeEstimator.estimate(string, text)).isEqualTo(10);
+		assertThat(RecordSizeEstimator.estimate(string, new Utf8(text))).isEqualTo(10);
+		assertThat(RecordSizeEstimator.estimate(string, text))
+				.isEqualTo(text.getBytes(StandardCharsets.UTF_8).length);
+	}
+
+	@Test
+	void countsMapKeysInUtf8Bytes() {
+		Schema map = Schema.createMap(Schema.create(Schema.Type.INT));
+
+		assertThat(RecordSizeEstimator.estimate(map, Map.of("clé", 1))).isEqualTo(4 + 4);
+	}
+}
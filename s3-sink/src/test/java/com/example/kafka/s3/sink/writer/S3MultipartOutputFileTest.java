@@ -0,0 +1,148 @@
+package com.example.kafka.s3.sink.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+import com.example.kafka.s3.sink.testutil.InMemoryS3Client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class S3MultipartOutputFileTest {
+
+	private static final String BUCKET = "bucket";
+	private static final String KEY = "topic=events/date=2024-01-01/test.parquet";
+
+	@TempDir
+	Path tempDir;
+
+	private final ParquetConverter converter = new ParquetConverter(new Configuration());
+
+	@Test
+	void uploadsLargeFileInMultipleParts() throws Exception {
+		InMemoryS3Client client = new InMemoryS3Client();
+		S3MultipartOutputFile outputFile = new S3MultipartOutputFile(client, BUCKET, KEY, 16 * 1024,
+				new SimpleMeterRegistry());
+		List<GenericRecord> records = randomRecords(2_000);
+
+		try (ParquetWriter<GenericRecord> writer = converter.open(AvroTestData.sampleSchema(), outputFile)) {
+			for (GenericRecord record : records) {
+				writer.write(record);
+			}
+		}
+
+		assertThat(client.uploadedPartCount()).isGreaterThan(1);
+		assertThat(client.pendingUploads()).isZero();
+		assertThat(readRecords(client.object(BUCKET, KEY))).hasSize(records.size());
+	}
+
+	@Test
+	void usesSinglePutForSmallFiles() throws Exception {
+		InMemoryS3Client client = new InMemoryS3Client();
+		S3ParquetWriter writer = new S3ParquetWriter(converter, client, new AppProperties(),
+				new SimpleMeterRegistry());
+		Schema schema = AvroTestData.sampleSchema();
+
+		writer.write(new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 3, "small"))), BUCKET, KEY);
+
+		assertThat(client.putCount()).isEqualTo(1);
+		assertThat(client.uploadedPartCount()).isZero();
+		assertThat(readRecords(client.object(BUCKET, KEY))).hasSize(1);
+	}
+
+	@Test
+	void smallFileNeverAllocatesAFullPart() throws Exception {
+		InMemoryS3Client client = new InMemoryS3Client();
+		int partSize = 8 * 1024 * 1024;
+		S3MultipartOutputFile outputFile = new S3MultipartOutputFile(client, BUCKET, KEY, partSize,
+				new SimpleMeterRegistry());
+		Schema schema = AvroTestData.sampleSchema();
+
+		try (ParquetWriter<GenericRecord> writer = converter.open(schema, outputFile)) {
+			writer.write(AvroTestData.sampleRecord(schema, 1, "small"));
+		}
+
+		assertThat(outputFile.bufferCapacity()).isEqualTo(S3MultipartOutputFile.INITIAL_BUFFER_SIZE);
+		assertThat(client.putCount()).isEqualTo(1);
+		assertThat(readRecords(client.object(BUCKET, KEY))).hasSize(1);
+	}
+
+	@Test
+	void abortsUploadWhenPartFails() {
+		InMemoryS3Client client = new InMemoryS3Client();
+		client.failUploadPart(2);
+		S3MultipartOutputFile outputFile = new S3MultipartOutputFile(client, BUCKET, KEY, 16 * 1024,
+				new SimpleMeterRegistry());
+		List<GenericRecord> records = randomRecords(2_000);
+
+		assertThatThrownBy(() -> {
+			try (ParquetWriter<GenericRecord> writer = converter.open(AvroTestData.sampleSchema(), outputFile)) {
+				for (GenericRecord record : records) {
+					writer.write(record);
+				}
+			}
+		}).hasStackTraceContaining("Failed to upload part 2");
+
+		assertThat(client.abortedUploads()).hasSize(1);
+		assertThat(client.pendingUploads()).isZero();
+		assertThat(client.object(BUCKET, KEY)).isNull();
+	}
+
+	@Test
+	void abortDiscardsStreamingFile() {
+		InMemoryS3Client client = new InMemoryS3Client();
+		S3ParquetWriter writer = new S3ParquetWriter(converter, client, new AppProperties(),
+				new SimpleMeterRegistry());
+		Schema schema = AvroTestData.sampleSchema();
+
+		StreamingParquetFile file = writer.open(schema, BUCKET, KEY);
+		file.write(AvroTestData.sampleRecord(schema, 1, "discarded"));
+		file.abort();
+
+		assertThat(client.objectKeys()).isEmpty();
+	}
+
+	private List<GenericRecord> randomRecords(int count) {
+		Schema schema = AvroTestData.sampleSchema();
+		Random random = new Random(42);
+		List<GenericRecord> records = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			byte[] payload = new byte[64];
+			random.nextBytes(payload);
+			records.add(AvroTestData.sampleRecord(schema, i, java.util.HexFormat.of().formatHex(payload)));
+		}
+		return records;
+	}
+
+	private List<GenericRecord> readRecords(byte[] parquet) throws Exception {
+		Path file = tempDir.resolve("downloaded.parquet");
+		Files.write(file, parquet);
+		org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(file.toUri());
+		List<GenericRecord> records = new ArrayList<>();
+		try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(hadoopPath).build()) {
+			GenericRecord record;
+			while ((record = reader.read()) != null) {
+				records.add(record);
+			}
+		}
+		return records;
+	}
+}
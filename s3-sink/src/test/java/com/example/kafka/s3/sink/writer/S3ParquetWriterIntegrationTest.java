@@ -14,9 +14,12 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
 import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
 import com.example.kafka.s3.sink.parquet.ParquetConverter;
 import com.example.kafka.s3.sink.testutil.AvroTestData;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
@@ -51,7 +54,8 @@ class S3ParquetWriterIntegrationTest {
 			GenericRecord record = AvroTestData.sampleRecord(schema, 5, "s3");
 			DecodedAvro decoded = new DecodedAvro(schema, List.of(record));
 
-			S3ParquetWriter writer = new S3ParquetWriter(new ParquetConverter(new Configuration()), client);
+			S3ParquetWriter writer = new S3ParquetWriter(new ParquetConverter(new Configuration()), client,
+					new AppProperties(), new SimpleMeterRegistry());
 			writer.write(decoded, bucket, key);
 
 			HeadObjectResponse response = client.headObject(HeadObjectRequest.builder()
@@ -0,0 +1,61 @@
+package com.example.kafka.s3.sink.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+
+class SpillDirectoryTest {
+
+	@TempDir
+	Path base;
+
+	@Test
+	void leavesSpillFilesOfRunningInstancesAlone() {
+		SpillDirectory running = SpillDirectory.open(base);
+		SpillFile spill = SpillFile.create(running.path(), AvroTestData.sampleSchema());
+
+		SpillDirectory started = SpillDirectory.open(base);
+
+		assertThat(running.path()).isNotEqualTo(started.path());
+		assertThat(running.path()).isDirectoryContaining(path -> path.getFileName().toString().startsWith("spill-"));
+		spill.delete();
+		running.close();
+		started.close();
+		assertThat(base).isEmptyDirectory();
+	}
+
+	@Test
+	void deletesSpillFilesOfExitedInstances() throws Exception {
+		// What a crashed process leaves behind: its lock file is written but no longer locked.
+		Path exited = Files.createDirectory(base.resolve(SpillDirectory.INSTANCE_PREFIX + "exited"));
+		Files.writeString(exited.resolve(SpillDirectory.LOCK_FILE), "42");
+		Files.write(exited.resolve(SpillFile.PREFIX + "1.avro"), new byte[] {1, 2, 3});
+		Path unrelated = Files.writeString(base.resolve("notes.txt"), "kept");
+
+		SpillDirectory started = SpillDirectory.open(base);
+
+		assertThat(exited).doesNotExist();
+		assertThat(unrelated).exists();
+		assertThat(started.path()).exists();
+		started.close();
+	}
+
+	@Test
+	void keepsDirectoryWithQueuedSpillFilesAfterClose() {
+		SpillDirectory closed = SpillDirectory.open(base);
+		SpillFile queued = SpillFile.create(closed.path(), AvroTestData.sampleSchema());
+		queued.finish();
+		closed.close();
+		assertThat(closed.path()).exists();
+
+		SpillDirectory.open(base).close();
+
+		assertThat(closed.path()).doesNotExist();
+	}
+}
@@ -0,0 +1,42 @@
+package com.example.kafka.s3.sink.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+
+class SpillFileTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordThatFailsToEncodeLeavesTheSpillReadable() {
+		Schema schema = AvroTestData.sampleSchema();
+		SpillFile spill = SpillFile.create(directory, schema);
+		spill.append(List.of(AvroTestData.sampleRecord(schema, 1, "a")));
+
+		assertThatThrownBy(() -> spill.append(List.of(AvroTestData.sampleRecord(schema, 2, "b"),
+				AvroTestData.sampleRecord(schema, 3, null))))
+				.isInstanceOf(RuntimeException.class);
+		spill.append(List.of(AvroTestData.sampleRecord(schema, 4, "d")));
+
+		List<Object> ids = new ArrayList<>();
+		for (GenericRecord record : spill) {
+			ids.add(record.get("id"));
+		}
+		assertThat(spill.failed()).isFalse();
+		assertThat(spill.recordCount()).isEqualTo(2);
+		assertThat(ids).containsExactly(1, 4);
+		spill.delete();
+	}
+}
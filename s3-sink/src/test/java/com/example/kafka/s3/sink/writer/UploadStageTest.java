@@ -0,0 +1,66 @@
+package com.example.kafka.s3.sink.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.kafka.s3.sink.config.AppProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UploadStageTest {
+
+	@Test
+	void runsTasksInlineWhenConcurrencyIsZero() {
+		UploadStage stage = new UploadStage(new AppProperties(), new SimpleMeterRegistry());
+		AtomicInteger runs = new AtomicInteger();
+
+		stage.submit(runs::incrementAndGet);
+
+		assertThat(runs).hasValue(1);
+	}
+
+	@Test
+	void blocksSubmitterWhenQueueIsFull() throws Exception {
+		AppProperties properties = new AppProperties();
+		properties.getUpload().setConcurrency(1);
+		properties.getUpload().setQueueCapacity(1);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		UploadStage stage = new UploadStage(properties, meterRegistry);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger completed = new AtomicInteger();
+
+		stage.submit(() -> {
+			started.countDown();
+			await(release);
+			completed.incrementAndGet();
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		stage.submit(completed::incrementAndGet);
+
+		Thread blocked = Thread.ofVirtual().start(() -> stage.submit(completed::incrementAndGet));
+		assertThat(blocked.join(Duration.ofMillis(300))).isFalse();
+		assertThat(stage.queueDepth()).isEqualTo(1);
+		assertThat(meterRegistry.get("sink.upload.queue.depth").gauge().value()).isEqualTo(1.0);
+
+		release.countDown();
+		assertThat(blocked.join(Duration.ofSeconds(5))).isTrue();
+		stage.shutdown();
+
+		assertThat(completed).hasValue(3);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
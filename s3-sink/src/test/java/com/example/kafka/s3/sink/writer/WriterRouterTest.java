@@ -0,0 +1,683 @@
+package com.example.kafka.s3.sink.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.example.kafka.s3.sink.avro.DecodedAvro;
+import com.example.kafka.s3.sink.config.AppProperties;
+import com.example.kafka.s3.sink.config.BatchMode;
+import com.example.kafka.s3.sink.config.PartitionGranularity;
+import com.example.kafka.s3.sink.config.TargetType;
+import com.example.kafka.s3.sink.mapping.ParquetPathBuilder;
+import com.example.kafka.s3.sink.mapping.TopicMappingResolver;
+import com.example.kafka.s3.sink.parquet.ParquetConverter;
+import com.example.kafka.s3.sink.testutil.AvroTestData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WriterRouterTest {
+
+	private static final String TOPIC = "events";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void streamingModeRollsFileWhenRecordLimitIsReached() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMode(BatchMode.STREAMING);
+		properties.getBatch().setMaxRecords(3);
+		WriterRouter router = newRouter(properties);
+
+		Schema schema = AvroTestData.sampleSchema();
+		for (int i = 0; i < 5; i++) {
+			router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, i, "stream"))));
+		}
+
+		assertThat(parquetFiles()).hasSize(1);
+		assertThat(countRecords(parquetFiles().get(0))).isEqualTo(3);
+
+		router.shutdown();
+
+		List<Path> files = parquetFiles();
+		assertThat(files).hasSize(2);
+		assertThat(files.stream().mapToLong(this::countRecords).sum()).isEqualTo(5);
+	}
+
+	@Test
+	void streamingModeRollsFileWhenSchemaChanges() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMode(BatchMode.STREAMING);
+		properties.getBatch().setMaxRecords(100);
+		WriterRouter router = newRouter(properties);
+
+		Schema schema = AvroTestData.sampleSchema();
+		Schema evolved = new Schema.Parser().parse(schema.toString().replace("SampleEvent", "EvolvedEvent"));
+		router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "first"))));
+		router.write(TOPIC, new DecodedAvro(evolved, List.of(AvroTestData.sampleRecord(evolved, 2, "second"))));
+
+		assertThat(parquetFiles()).hasSize(1);
+
+		router.shutdown();
+
+		assertThat(parquetFiles()).hasSize(2);
+	}
+
+	@Test
+	void bufferedModeFlushesWhenEstimatedBytesReachMaxBytes() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(1_000);
+		properties.getBatch().setMaxBytes(DataSize.ofBytes(50));
+		WriterRouter router = newRouter(properties);
+
+		// Each record is estimated at 4 bytes for the int id plus 20 bytes of payload.
+		Schema schema = AvroTestData.sampleSchema();
+		for (int i = 0; i < 2; i++) {
+			router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, i, "abcdefghijklmnopqrst"))));
+		}
+		assertThat(parquetFiles()).isEmpty();
+
+		router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 2, "abcdefghijklmnopqrst"))));
+
+		assertThat(parquetFiles()).hasSize(1);
+		assertThat(countRecords(parquetFiles().get(0))).isEqualTo(3);
+	}
+
+	@Test
+	void bufferedModeRollsOnTargetFileSizeScaledByObservedCompression() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(1_000);
+		properties.getBatch().setTargetFileSize(DataSize.ofBytes(100));
+		WriterRouter router = newRouter(properties);
+
+		// Each record is estimated at 4 bytes for the int id plus 20 UTF-8 bytes for ten two-byte characters.
+		Schema schema = AvroTestData.sampleSchema();
+		String payload = "éééééééééé";
+		for (int i = 0; i < 4; i++) {
+			router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, i, payload))));
+		}
+		assertThat(parquetFiles()).isEmpty();
+
+		// With no file written yet the ratio is 1, so the fifth record reaches 120 estimated bytes.
+		router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 4, payload))));
+		assertThat(parquetFiles()).hasSize(1);
+		Path first = parquetFiles().get(0);
+		assertThat(countRecords(first)).isEqualTo(5);
+
+		// A tiny file is mostly footer, so it comes out larger than its estimate and the next one rolls sooner.
+		int id = 5;
+		while (parquetFiles().size() < 2 && id < 10) {
+			router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, id++, payload))));
+		}
+		List<Path> files = parquetFiles();
+		assertThat(files).hasSize(2);
+		Path second = files.stream().filter(file -> !file.equals(first)).findFirst().orElseThrow();
+		assertThat(countRecords(second)).isLessThan(5);
+	}
+
+	@Test
+	void buffersEachKafkaPartitionAndRecordDateSeparately() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(2);
+		WriterRouter router = newRouter(properties);
+
+		Schema schema = AvroTestData.sampleSchema();
+		Instant beforeMidnight = Instant.parse("2023-12-31T23:59:59Z");
+		router.write(new RecordOrigin(TOPIC, 0, beforeMidnight),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "p0"))), PendingAck.NONE);
+		router.write(new RecordOrigin(TOPIC, 1, beforeMidnight),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 2, "p1"))), PendingAck.NONE);
+		assertThat(parquetFiles()).isEmpty();
+
+		router.write(new RecordOrigin(TOPIC, 0, beforeMidnight),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 3, "p0"))), PendingAck.NONE);
+
+		List<Path> files = parquetFiles();
+		assertThat(files).hasSize(1);
+		assertThat(files.get(0).toString()).contains("/topic=events/date=2023-12-31/");
+		assertThat(countRecords(files.get(0))).isEqualTo(2);
+	}
+
+	@Test
+	void retiresBuffersEmptiedBySizeFlushWithoutFlushInterval() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(1);
+		properties.getBatch().setFlushInterval(Duration.ZERO);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WriterRouter router = newRouter(properties, meterRegistry);
+
+		// One buffer per record date; without an interval flush nothing else would ever unmap them.
+		Schema schema = AvroTestData.sampleSchema();
+		for (int day = 1; day <= 3; day++) {
+			router.write(new RecordOrigin(TOPIC, 0, Instant.parse("2023-12-0" + day + "T12:00:00Z")),
+					new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, day, "daily"))), PendingAck.NONE);
+		}
+
+		assertThat(parquetFiles()).hasSize(3);
+		assertThat(meterRegistry.get("sink.buffers").gauge().value()).isZero();
+	}
+
+	@Test
+	void splitsPayloadsByEventTimeField() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(100);
+		AppProperties.PartitioningProperties partitioning = properties.getMappings().get(0).getPartitioning();
+		partitioning.setField("timestampMs");
+		partitioning.setGranularity(PartitionGranularity.HOUR);
+		partitioning.setZone(ZoneId.of("Europe/Paris"));
+		WriterRouter router = newRouter(properties);
+
+		Schema schema = SchemaBuilder.record("TimedEvent").fields()
+				.requiredInt("id")
+				.requiredLong("timestampMs")
+				.endRecord();
+		long lateEvening = Instant.parse("2023-12-31T21:30:00Z").toEpochMilli();
+		long afterMidnight = Instant.parse("2023-12-31T23:10:00Z").toEpochMilli();
+		router.write(new RecordOrigin(TOPIC, 0, Instant.parse("2024-01-01T00:00:00Z")), new DecodedAvro(schema, List.of(
+				timedRecord(schema, 1, lateEvening), timedRecord(schema, 2, afterMidnight),
+				timedRecord(schema, 3, lateEvening))), PendingAck.NONE);
+		router.shutdown();
+
+		List<Path> files = parquetFiles();
+		assertThat(files).hasSize(2);
+		assertThat(files).anySatisfy(file -> {
+			assertThat(file.toString()).contains("/topic=events/date=2023-12-31/hour=22/");
+			assertThat(countRecords(file)).isEqualTo(2);
+		});
+		assertThat(files).anySatisfy(file -> {
+			assertThat(file.toString()).contains("/topic=events/date=2024-01-01/hour=00/");
+			assertThat(countRecords(file)).isEqualTo(1);
+		});
+	}
+
+	@Test
+	void spillsRecordsPastThresholdAndWritesThemInOrder() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(5);
+		properties.getBatch().setSpillThreshold(DataSize.ofBytes(30));
+		properties.getBatch().setSpillDirectory(tempDir.resolve("spill"));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WriterRouter router = newRouter(properties, meterRegistry);
+
+		Schema schema = AvroTestData.sampleSchema();
+		for (int id = 1; id <= 4; id++) {
+			router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, id, "abcdefghijklmnopqrst"))));
+		}
+		assertThat(spillFiles()).hasSize(1);
+		assertThat(meterRegistry.get("sink.buffer.spilled.bytes").gauge().value()).isPositive();
+
+		router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 5, "abcdefghijklmnopqrst"))));
+
+		List<Path> files = parquetFiles();
+		assertThat(files).hasSize(1);
+		List<Object> ids = new ArrayList<>();
+		org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(files.get(0).toUri());
+		try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(hadoopPath).build()) {
+			GenericRecord record;
+			while ((record = reader.read()) != null) {
+				ids.add(record.get("id"));
+			}
+		}
+		assertThat(ids).containsExactly(1, 2, 3, 4, 5);
+		assertThat(spillFiles()).isEmpty();
+
+		router.shutdown();
+		try (var instances = Files.list(tempDir.resolve("spill"))) {
+			assertThat(instances).isEmpty();
+		}
+	}
+
+	@Test
+	void pausesIntakeWhenMemoryBudgetIsUsedUp() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(100);
+		properties.getMemory().setBudget(DataSize.ofBytes(40));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		List<String> intakeCalls = new ArrayList<>();
+		WriterRouter router = newRouter(properties, meterRegistry, new IntakeControl() {
+			@Override
+			public void pause() {
+				intakeCalls.add("pause");
+			}
+
+			@Override
+			public void resume() {
+				intakeCalls.add("resume");
+			}
+
+			@Override
+			public void stop() {
+				intakeCalls.add("stop");
+			}
+		});
+
+		Schema schema = AvroTestData.sampleSchema();
+		router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "abcdefghijklmnopqrst"))));
+		assertThat(meterRegistry.get("sink.memory.budget.used").gauge().value()).isEqualTo(24.0);
+		assertThat(intakeCalls).isEmpty();
+
+		router.write(TOPIC, new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 2, "abcdefghijklmnopqrst"))));
+
+		assertThat(intakeCalls).containsExactly("pause", "resume");
+		assertThat(parquetFiles()).hasSize(1);
+		assertThat(meterRegistry.get("sink.flush").tag("reason", "memory").counter().count()).isEqualTo(1.0);
+		assertThat(meterRegistry.get("sink.consumer.pause.time").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("sink.memory.budget.used").gauge().value()).isZero();
+	}
+
+	@Test
+	void sealsLargestBuffersUntilMemoryBudgetCanResume() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(100);
+		properties.getMemory().setBudget(DataSize.ofBytes(100));
+		properties.getMemory().setResumeRatio(0.5);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		List<String> intakeCalls = new ArrayList<>();
+		WriterRouter router = newRouter(properties, meterRegistry, new IntakeControl() {
+			@Override
+			public void pause() {
+				intakeCalls.add("pause");
+			}
+
+			@Override
+			public void resume() {
+				intakeCalls.add("resume");
+			}
+
+			@Override
+			public void stop() {
+				intakeCalls.add("stop");
+			}
+		});
+
+		// 24 estimated bytes per record: partitions 0 and 2 end up with 48 bytes each, partition 1 with 24.
+		Schema schema = AvroTestData.sampleSchema();
+		for (int partition : new int[] { 0, 0, 1, 2 }) {
+			router.write(new RecordOrigin(TOPIC, partition, null), new DecodedAvro(schema,
+					List.of(AvroTestData.sampleRecord(schema, partition, "abcdefghijklmnopqrst"))), PendingAck.NONE);
+		}
+		assertThat(intakeCalls).isEmpty();
+
+		router.write(new RecordOrigin(TOPIC, 2, null), new DecodedAvro(schema,
+				List.of(AvroTestData.sampleRecord(schema, 2, "abcdefghijklmnopqrst"))), PendingAck.NONE);
+
+		// Sealing partition 2 alone would leave 72 bytes, above the resume level of 50.
+		assertThat(intakeCalls).containsExactly("pause", "resume");
+		assertThat(parquetFiles()).hasSize(2);
+		assertThat(meterRegistry.get("sink.flush").tag("reason", "memory").counter().count()).isEqualTo(2.0);
+		assertThat(meterRegistry.get("sink.memory.budget.used").gauge().value()).isEqualTo(24.0);
+	}
+
+	@Test
+	void flushesBuffersInParallelAtShutdown() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(100);
+		properties.getBatch().setFlushConcurrency(4);
+		CountDownLatch writing = new CountDownLatch(4);
+		AtomicInteger overlapping = new AtomicInteger();
+		LocalParquetWriter localWriter = new LocalParquetWriter(new ParquetConverter(new Configuration())) {
+			@Override
+			public Path write(Schema schema, Iterable<GenericRecord> records, Path outputPath,
+					AppProperties.ParquetProperties options) {
+				writing.countDown();
+				try {
+					// Only returns true if all four buffers are being written at the same time.
+					if (writing.await(5, TimeUnit.SECONDS)) {
+						overlapping.incrementAndGet();
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				return super.write(schema, records, outputPath, options);
+			}
+		};
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WriterRouter router = newRouter(properties, meterRegistry, IntakeControl.NONE, localWriter);
+
+		Schema schema = AvroTestData.sampleSchema();
+		for (int partition = 0; partition < 4; partition++) {
+			router.write(new RecordOrigin(TOPIC, partition, null),
+					new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, partition, "p"))), PendingAck.NONE);
+		}
+		router.shutdown();
+
+		assertThat(parquetFiles()).hasSize(4);
+		assertThat(overlapping).hasValue(4);
+		assertThat(meterRegistry.get("sink.flush.cycle.time").tag("reason", "shutdown").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void retriesFailedWriteWithoutLosingRecords() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(2);
+		properties.getUpload().setMaxAttempts(3);
+		properties.getUpload().setRetryBackoff(Duration.ofMillis(1));
+		AtomicInteger attempts = new AtomicInteger();
+		LocalParquetWriter localWriter = new LocalParquetWriter(new ParquetConverter(new Configuration())) {
+			@Override
+			public Path write(Schema schema, Iterable<GenericRecord> records, Path outputPath,
+					AppProperties.ParquetProperties options) {
+				if (attempts.incrementAndGet() < 3) {
+					throw new ParquetWriteException("disk unavailable", null);
+				}
+				return super.write(schema, records, outputPath, options);
+			}
+		};
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WriterRouter router = newRouter(properties, meterRegistry, IntakeControl.NONE, localWriter);
+		AtomicInteger acknowledged = new AtomicInteger();
+
+		Schema schema = AvroTestData.sampleSchema();
+		PendingAck ack = PendingAck.of(acknowledged::incrementAndGet);
+		router.write(new RecordOrigin(TOPIC, 0, null), new DecodedAvro(schema, List.of(
+				AvroTestData.sampleRecord(schema, 1, "first"), AvroTestData.sampleRecord(schema, 2, "second"))), ack);
+		ack.release();
+
+		assertThat(parquetFiles()).hasSize(1);
+		assertThat(countRecords(parquetFiles().get(0))).isEqualTo(2);
+		assertThat(acknowledged).hasValue(1);
+		assertThat(meterRegistry.get("sink.parquet.write.failures").tag("topic", TOPIC).counter().count())
+				.isEqualTo(2.0);
+	}
+
+	@Test
+	void retriesLocalWriteThatFailedPartWayThrough() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(2);
+		properties.getUpload().setMaxAttempts(2);
+		properties.getUpload().setRetryBackoff(Duration.ofMillis(1));
+		AtomicInteger attempts = new AtomicInteger();
+		// The first attempt writes one record and then fails, so a footer-closed partial file is left behind.
+		ParquetConverter failingOnce = new ParquetConverter(new Configuration()) {
+			@Override
+			public void write(Schema schema, Iterable<GenericRecord> records, Path outputPath,
+					AppProperties.ParquetProperties options) throws IOException {
+				if (attempts.incrementAndGet() > 1) {
+					super.write(schema, records, outputPath, options);
+					return;
+				}
+				super.write(schema, () -> new Iterator<>() {
+					private final Iterator<GenericRecord> delegate = records.iterator();
+					private boolean returned;
+
+					@Override
+					public boolean hasNext() {
+						return true;
+					}
+
+					@Override
+					public GenericRecord next() {
+						if (returned) {
+							throw new ParquetWriteException("disk unavailable", null);
+						}
+						returned = true;
+						return delegate.next();
+					}
+				}, outputPath, options);
+			}
+		};
+		IntakeControl intake = new IntakeControl() {
+			@Override
+			public void pause() {
+			}
+
+			@Override
+			public void resume() {
+			}
+
+			@Override
+			public void stop() {
+				throw new AssertionError("the retry should have succeeded");
+			}
+		};
+		WriterRouter router = newRouter(properties, new SimpleMeterRegistry(), intake,
+				new LocalParquetWriter(failingOnce));
+
+		Schema schema = AvroTestData.sampleSchema();
+		router.write(TOPIC, new DecodedAvro(schema, List.of(
+				AvroTestData.sampleRecord(schema, 1, "first"), AvroTestData.sampleRecord(schema, 2, "second"))));
+
+		assertThat(attempts).hasValue(2);
+		assertThat(parquetFiles()).hasSize(1);
+		assertThat(countRecords(parquetFiles().get(0))).isEqualTo(2);
+		try (var stream = Files.walk(tempDir)) {
+			assertThat(stream.filter(path -> path.getFileName().toString().endsWith(".inprogress"))).isEmpty();
+		}
+	}
+
+	@Test
+	void rejectsUnmappedTopicBeforeBuffering() throws Exception {
+		AppProperties properties = localProperties();
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WriterRouter router = newRouter(properties, meterRegistry);
+
+		Schema schema = AvroTestData.sampleSchema();
+		assertThatThrownBy(() -> router.write(new RecordOrigin("unmapped", 0, null),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "lost"))), PendingAck.NONE))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("unmapped");
+
+		assertThat(meterRegistry.get("sink.buffers").gauge().value()).isZero();
+		router.shutdown();
+		assertThat(parquetFiles()).isEmpty();
+	}
+
+	@Test
+	void stopsIntakeAndKeepsOffsetsWhenWriteKeepsFailing() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(1);
+		properties.getUpload().setMaxAttempts(2);
+		properties.getUpload().setRetryBackoff(Duration.ofMillis(1));
+		LocalParquetWriter localWriter = new LocalParquetWriter(new ParquetConverter(new Configuration())) {
+			@Override
+			public Path write(Schema schema, Iterable<GenericRecord> records, Path outputPath,
+					AppProperties.ParquetProperties options) {
+				throw new ParquetWriteException("disk unavailable", null);
+			}
+		};
+		List<String> intakeCalls = new ArrayList<>();
+		IntakeControl intake = new IntakeControl() {
+			@Override
+			public void pause() {
+				intakeCalls.add("pause");
+			}
+
+			@Override
+			public void resume() {
+				intakeCalls.add("resume");
+			}
+
+			@Override
+			public void stop() {
+				intakeCalls.add("stop");
+			}
+		};
+		WriterRouter router = newRouter(properties, new SimpleMeterRegistry(), intake, localWriter);
+		AtomicInteger acknowledged = new AtomicInteger();
+
+		Schema schema = AvroTestData.sampleSchema();
+		PendingAck ack = PendingAck.of(acknowledged::incrementAndGet);
+		router.write(new RecordOrigin(TOPIC, 0, null),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "lost"))), ack);
+		ack.release();
+
+		// Never acknowledged, so the record is redelivered once consumption restarts.
+		assertThat(acknowledged).hasValue(0);
+		assertThat(intakeCalls).containsExactly("stop");
+		assertThat(parquetFiles()).isEmpty();
+	}
+
+	@Test
+	void acknowledgesOnlyAfterBufferIsWritten() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(2);
+		WriterRouter router = newRouter(properties);
+		AtomicInteger acknowledged = new AtomicInteger();
+
+		Schema schema = AvroTestData.sampleSchema();
+		PendingAck first = PendingAck.of(acknowledged::incrementAndGet);
+		router.write(new RecordOrigin(TOPIC, 0, null),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "first"))), first);
+		first.release();
+		assertThat(acknowledged).hasValue(0);
+
+		PendingAck second = PendingAck.of(acknowledged::incrementAndGet);
+		router.write(new RecordOrigin(TOPIC, 0, null),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 2, "second"))), second);
+		second.release();
+
+		assertThat(parquetFiles()).hasSize(1);
+		assertThat(acknowledged).hasValue(2);
+	}
+
+	@Test
+	void writeAllAcknowledgesPollOnceEveryBufferIsWritten() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(2);
+		WriterRouter router = newRouter(properties);
+		AtomicInteger acknowledged = new AtomicInteger();
+
+		Schema schema = AvroTestData.sampleSchema();
+		PendingAck ack = PendingAck.of(acknowledged::incrementAndGet);
+		router.writeAll(List.of(
+				new ReceivedAvro(new RecordOrigin(TOPIC, 0, null),
+						new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "p0")))),
+				new ReceivedAvro(new RecordOrigin(TOPIC, 1, null),
+						new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 2, "p1")))),
+				new ReceivedAvro(new RecordOrigin(TOPIC, 0, null),
+						new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 3, "p0"))))), ack);
+		ack.release();
+
+		assertThat(parquetFiles()).hasSize(1);
+		assertThat(countRecords(parquetFiles().get(0))).isEqualTo(2);
+		assertThat(acknowledged).hasValue(0);
+
+		router.shutdown();
+
+		assertThat(parquetFiles()).hasSize(2);
+		assertThat(acknowledged).hasValue(1);
+	}
+
+	@Test
+	void recordsBufferGaugesAndFlushReasons() throws Exception {
+		AppProperties properties = localProperties();
+		properties.getBatch().setMaxRecords(2);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WriterRouter router = newRouter(properties, meterRegistry);
+
+		Schema schema = AvroTestData.sampleSchema();
+		router.write(new RecordOrigin(TOPIC, 0, null),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 1, "first"))), PendingAck.NONE);
+		assertThat(meterRegistry.get("sink.buffer.records").tag("topic", TOPIC).tag("partition", "0")
+				.gauge().value()).isEqualTo(1.0);
+
+		router.write(new RecordOrigin(TOPIC, 0, null),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 2, "second"))), PendingAck.NONE);
+		router.write(new RecordOrigin(TOPIC, 0, null),
+				new DecodedAvro(schema, List.of(AvroTestData.sampleRecord(schema, 3, "third"))), PendingAck.NONE);
+		router.shutdown();
+
+		assertThat(meterRegistry.get("sink.flush").tag("reason", "size").counter().count()).isEqualTo(1.0);
+		assertThat(meterRegistry.get("sink.flush").tag("reason", "shutdown").counter().count()).isEqualTo(1.0);
+		assertThat(meterRegistry.get("sink.parquet.file.size").tag("topic", TOPIC).summary().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("sink.buffer.records").gauge().value()).isZero();
+	}
+
+	private WriterRouter newRouter(AppProperties properties) {
+		return newRouter(properties, new SimpleMeterRegistry());
+	}
+
+	private WriterRouter newRouter(AppProperties properties, SimpleMeterRegistry meterRegistry) {
+		return newRouter(properties, meterRegistry, IntakeControl.NONE);
+	}
+
+	private WriterRouter newRouter(AppProperties properties, SimpleMeterRegistry meterRegistry,
+			IntakeControl intake) {
+		return newRouter(properties, meterRegistry, intake,
+				new LocalParquetWriter(new ParquetConverter(new Configuration())));
+	}
+
+	private WriterRouter newRouter(AppProperties properties, SimpleMeterRegistry meterRegistry,
+			IntakeControl intake, LocalParquetWriter localWriter) {
+		Clock clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+		ParquetConverter converter = new ParquetConverter(new Configuration());
+		TopicMappingResolver resolver = new TopicMappingResolver(properties, new ParquetPathBuilder(clock));
+		return new WriterRouter(resolver, localWriter,
+				new S3ParquetWriter(converter, null, properties, meterRegistry),
+				new UploadStage(properties, meterRegistry), properties,
+				new MemoryBudget(properties, intake, meterRegistry), intake, clock, meterRegistry);
+	}
+
+	private static GenericRecord timedRecord(Schema schema, int id, long timestampMs) {
+		GenericRecord record = new GenericData.Record(schema);
+		record.put("id", id);
+		record.put("timestampMs", timestampMs);
+		return record;
+	}
+
+	private AppProperties localProperties() {
+		AppProperties properties = new AppProperties();
+		properties.getLocal().setBaseDir(tempDir);
+		AppProperties.TopicMapping mapping = new AppProperties.TopicMapping();
+		mapping.setTopic(TOPIC);
+		mapping.setDestination(TargetType.LOCAL);
+		mapping.setDirectory("out");
+		properties.setMappings(List.of(mapping));
+		return properties;
+	}
+
+	private List<Path> parquetFiles() throws Exception {
+		try (var stream = Files.walk(tempDir)) {
+			return stream
+					.filter(path -> path.toString().endsWith(".parquet"))
+					.toList();
+		}
+	}
+
+	private List<Path> spillFiles() throws Exception {
+		try (var stream = Files.walk(tempDir.resolve("spill"))) {
+			return stream
+					.filter(path -> path.getFileName().toString().startsWith("spill-"))
+					.toList();
+		}
+	}
+
+	private long countRecords(Path file) {
+		org.apache.hadoop.fs.Path hadoopPath = new org.apache.hadoop.fs.Path(file.toUri());
+		try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(hadoopPath).build()) {
+			long count = 0;
+			while (reader.read() != null) {
+				count++;
+			}
+			return count;
+		} catch (Exception ex) {
+			throw new IllegalStateException("Failed to read parquet file " + file, ex);
+		}
+	}
+}